@@ -0,0 +1,342 @@
+package com.itm.space.backend.client.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Кэш успешных ответов на GET в памяти шлюза, отдельный для каждого маршрута и пользователя.
+ * Попадание в кэш отвечает сразу, без TokenRelay и без похода в backend-resources. HEAD не кэшируется,
+ * потоковые ответы (NDJSON, SSE) проходят мимо кэша.
+ * <p>
+ * Ответ хранится не дольше {@code ttl} и не дольше {@code max-age} из Cache-Control ответа;
+ * {@code no-store} не кэшируется, {@code no-cache} всегда перепроверяется. Устаревший ответ с ETag
+ * перепроверяется через If-None-Match, и на 304 снова отдаётся из кэша. Запросы на запись
+ * сбрасывают кэш того пользователя, который их сделал.
+ * <pre>
+ * filters:
+ *   - ResponseCache=30s,16MB
+ * </pre>
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+		extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+	public static final String CACHE_HEADER = "X-Cache";
+
+	// Потоковые ответы отдаются клиенту по мере поступления, а не собираются в память
+	private static final List<MediaType> STREAMING_TYPES = List.of(MediaType.APPLICATION_NDJSON,
+			MediaType.TEXT_EVENT_STREAM);
+
+	private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])(?:s-)?max-age=(\\d+)");
+
+	private static final Set<String> UNCACHED_HEADERS = Set.of(HttpHeaders.SET_COOKIE, HttpHeaders.TRANSFER_ENCODING,
+			HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH, HttpHeaders.DATE, HttpHeaders.AGE, CACHE_HEADER);
+
+	private final Clock clock;
+
+	public ResponseCacheGatewayFilterFactory() {
+		this(Clock.systemUTC());
+	}
+
+	ResponseCacheGatewayFilterFactory(Clock clock) {
+		super(Config.class);
+		this.clock = clock;
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("ttl", "maxSize");
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		Cache<Key, Entry> cache = Caffeine.newBuilder()
+				.maximumWeight(config.getMaxSize().toBytes())
+				.weigher((Key key, Entry entry) -> key.weight() + entry.weight())
+				.expireAfter(new EntryExpiry(clock))
+				.build();
+		// Перед NettyWriteResponseFilter, иначе тело ответа уйдёт клиенту мимо декоратора
+		// Анонимный запрос идёт мимо кэша; switchIfEmpty после filter() не годится — Mono<Void> всегда пуст
+		return new OrderedGatewayFilter((exchange, chain) -> exchange.getPrincipal()
+				.map(Principal::getName)
+				.defaultIfEmpty("")
+				.flatMap(principal -> principal.isEmpty() ? chain.filter(exchange)
+						: filter(exchange, chain, principal, cache, config)),
+				NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+	}
+
+	private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String principal,
+			Cache<Key, Entry> cache, Config config) {
+		ServerHttpRequest request = exchange.getRequest();
+		if (request.getMethod() != HttpMethod.GET) {
+			if (request.getMethod() != HttpMethod.HEAD && request.getMethod() != HttpMethod.OPTIONS) {
+				cache.asMap().keySet().removeIf(key -> key.principal().equals(principal));
+			}
+			return chain.filter(exchange);
+		}
+		List<String> requestCacheControl = request.getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL);
+		if (requestCacheControl.stream().anyMatch(value -> value.contains("no-store"))) {
+			return chain.filter(exchange);
+		}
+		Key key = new Key(principal, request.getHeaders().getFirst(HttpHeaders.ACCEPT), request.getURI().getRawPath(),
+				request.getURI().getRawQuery());
+		Entry entry = requestCacheControl.stream().anyMatch(value -> value.contains("no-cache"))
+				? null : cache.getIfPresent(key);
+		Instant now = clock.instant();
+		if (entry != null && entry.isFresh(now)) {
+			return respond(exchange, entry, now, "HIT");
+		}
+		if (entry != null && entry.etag() != null && !request.getHeaders().containsKey(HttpHeaders.IF_NONE_MATCH)) {
+			ServerWebExchange revalidation = exchange.mutate()
+					.request(builder -> builder.header(HttpHeaders.IF_NONE_MATCH, entry.etag()))
+					.build();
+			return chain.filter(decorate(revalidation, key, entry, cache, config));
+		}
+		return chain.filter(decorate(exchange, key, null, cache, config));
+	}
+
+	private ServerWebExchange decorate(ServerWebExchange exchange, Key key, Entry revalidated,
+			Cache<Key, Entry> cache, Config config) {
+		ServerHttpResponse response = exchange.getResponse();
+		ServerHttpResponseDecorator decorator = new ServerHttpResponseDecorator(response) {
+
+			@Override
+			public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+				Instant now = clock.instant();
+				if (revalidated != null && getStatusCode() == HttpStatus.NOT_MODIFIED) {
+					Entry refreshed = revalidated.refresh(now, freshness(getHeaders(), config));
+					cache.put(key, refreshed);
+					getHeaders().clear();
+					return respond(getDelegate(), refreshed, now, "REVALIDATED");
+				}
+				Duration freshness = cacheable(this, config) ? freshness(getHeaders(), config) : null;
+				if (freshness == null) {
+					getHeaders().set(CACHE_HEADER, "MISS");
+					return super.writeWith(body);
+				}
+				HttpHeaders headers = storedHeaders(getHeaders());
+				HttpStatus status = getStatusCode();
+				ByteArrayOutputStream captured = new ByteArrayOutputStream();
+				long maxEntrySize = config.getMaxEntrySize().toBytes();
+				getHeaders().set(CACHE_HEADER, "MISS");
+				return super.writeWith(Flux.from(body)
+						.doOnNext(buffer -> {
+							if (captured.size() <= maxEntrySize) {
+								ByteBuffer bytes = buffer.asByteBuffer();
+								byte[] chunk = new byte[bytes.remaining()];
+								bytes.get(chunk);
+								captured.writeBytes(chunk);
+							}
+						})
+						.doOnComplete(() -> {
+							if (captured.size() <= maxEntrySize) {
+								cache.put(key, new Entry(status, headers, captured.toByteArray(),
+										headers.getETag(), now, now.plus(freshness), config.getTtl()));
+							}
+						}));
+			}
+		};
+		return exchange.mutate().response(decorator).build();
+	}
+
+	private Mono<Void> respond(ServerWebExchange exchange, Entry entry, Instant now, String outcome) {
+		return respond(exchange.getResponse(), entry, now, outcome, exchange.getRequest().getHeaders().getIfNoneMatch());
+	}
+
+	private Mono<Void> respond(ServerHttpResponse response, Entry entry, Instant now, String outcome) {
+		return respond(response, entry, now, outcome, List.of());
+	}
+
+	private Mono<Void> respond(ServerHttpResponse response, Entry entry, Instant now, String outcome,
+			List<String> ifNoneMatch) {
+		response.getHeaders().putAll(entry.headers());
+		response.getHeaders().set(HttpHeaders.AGE,
+				String.valueOf(Duration.between(entry.storedAt(), now).toSeconds()));
+		response.getHeaders().set(CACHE_HEADER, outcome);
+		if (entry.etag() != null && (ifNoneMatch.contains(entry.etag()) || ifNoneMatch.contains("*"))) {
+			response.setStatusCode(HttpStatus.NOT_MODIFIED);
+			return response.setComplete();
+		}
+		response.setStatusCode(entry.status());
+		response.getHeaders().setContentLength(entry.body().length);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.body())));
+	}
+
+	private static boolean cacheable(ServerHttpResponse response, Config config) {
+		HttpHeaders headers = response.getHeaders();
+		if (response.getStatusCode() != HttpStatus.OK || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+			return false;
+		}
+		if (headers.getVary().contains("*")) {
+			return false;
+		}
+		MediaType contentType = headers.getContentType();
+		if (contentType != null && STREAMING_TYPES.stream().anyMatch(contentType::isCompatibleWith)) {
+			return false;
+		}
+		long contentLength = headers.getContentLength();
+		return contentLength < 0 || contentLength <= config.getMaxEntrySize().toBytes();
+	}
+
+	/**
+	 * @return сколько ответ считается свежим или {@code null}, если его нельзя хранить
+	 */
+	private static Duration freshness(HttpHeaders headers, Config config) {
+		String cacheControl = String.join(",", headers.getOrEmpty(HttpHeaders.CACHE_CONTROL))
+				.toLowerCase(Locale.ROOT);
+		if (cacheControl.contains("no-store")) {
+			return null;
+		}
+		if (cacheControl.contains("no-cache")) {
+			return Duration.ZERO;
+		}
+		Matcher maxAge = MAX_AGE.matcher(cacheControl);
+		if (maxAge.find()) {
+			Duration downstream = Duration.ofSeconds(Long.parseLong(maxAge.group(1)));
+			return downstream.compareTo(config.getTtl()) < 0 ? downstream : config.getTtl();
+		}
+		return config.getTtl();
+	}
+
+	private static HttpHeaders storedHeaders(HttpHeaders headers) {
+		HttpHeaders stored = new HttpHeaders();
+		headers.forEach((name, values) -> {
+			if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+				stored.put(name, List.copyOf(values));
+			}
+		});
+		return HttpHeaders.readOnlyHttpHeaders(stored);
+	}
+
+	public static class Config {
+
+		private Duration ttl = Duration.ofSeconds(30);
+
+		private DataSize maxSize = DataSize.ofMegabytes(16);
+
+		private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public Config setTtl(Duration ttl) {
+			this.ttl = ttl;
+			return this;
+		}
+
+		public DataSize getMaxSize() {
+			return maxSize;
+		}
+
+		public Config setMaxSize(DataSize maxSize) {
+			this.maxSize = maxSize;
+			return this;
+		}
+
+		public DataSize getMaxEntrySize() {
+			return maxEntrySize;
+		}
+
+		public Config setMaxEntrySize(DataSize maxEntrySize) {
+			this.maxEntrySize = maxEntrySize;
+			return this;
+		}
+
+	}
+
+	/**
+	 * Accept входит в ключ: один и тот же путь отдаёт и JSON, и NDJSON.
+	 */
+	private record Key(String principal, String accept, String path, String query) {
+
+		int weight() {
+			return 64 + principal.length() + path.length() + (accept == null ? 0 : accept.length())
+					+ (query == null ? 0 : query.length());
+		}
+
+	}
+
+	/**
+	 * Запись со сроком свежести; запись с ETag хранится ещё {@code revalidateFor} для перепроверки.
+	 */
+	private record Entry(HttpStatus status, HttpHeaders headers, byte[] body, String etag, Instant storedAt,
+			Instant freshUntil, Duration revalidateFor) {
+
+		boolean isFresh(Instant now) {
+			return now.isBefore(freshUntil);
+		}
+
+		Instant evictAt() {
+			return etag == null ? freshUntil : freshUntil.plus(revalidateFor);
+		}
+
+		Entry refresh(Instant now, Duration freshness) {
+			return new Entry(status, headers, body, etag, now, now.plus(freshness == null ? Duration.ZERO : freshness),
+					revalidateFor);
+		}
+
+		int weight() {
+			return body.length + headers.size() * 64;
+		}
+
+	}
+
+	private static final class EntryExpiry implements Expiry<Key, Entry> {
+
+		private final Clock clock;
+
+		private EntryExpiry(Clock clock) {
+			this.clock = clock;
+		}
+
+		@Override
+		public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+			return Math.max(0, Duration.between(clock.instant(), entry.evictAt()).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, entry, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.itm.space.backend.client.oauth2;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Обновление access token по refresh token, одно на пользователя и регистрацию клиента.
+ * Токен обновляется заранее — когда до истечения осталось меньше {@code refreshBeforeExpiry}.
+ * Параллельные запросы с тем же истекающим токеном получают результат уже идущего обновления,
+ * а не идут в Keycloak сами; запросы, успевшие прочитать старый токен уже после обновления, получают тот же результат.
+ */
+public class SingleFlightRefreshTokenProvider implements ReactiveOAuth2AuthorizedClientProvider {
+
+	// Результат нужен только запросам, прочитавшим старый токен до сохранения нового
+	private static final Duration RESULT_RETENTION = Duration.ofMinutes(1);
+
+	private final ReactiveOAuth2AuthorizedClientProvider delegate;
+
+	private final Duration refreshBeforeExpiry;
+
+	private final Clock clock;
+
+	private final MeterRegistry meterRegistry;
+
+	private final Cache<Key, Refresh> refreshes = Caffeine.newBuilder()
+			.expireAfterWrite(RESULT_RETENTION)
+			.build();
+
+	/**
+	 * @param delegate провайдер, который делает сам запрос к token endpoint; должен считать токен истекающим
+	 * с тем же запасом {@code refreshBeforeExpiry}
+	 */
+	public SingleFlightRefreshTokenProvider(ReactiveOAuth2AuthorizedClientProvider delegate,
+			Duration refreshBeforeExpiry, Clock clock, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.refreshBeforeExpiry = refreshBeforeExpiry;
+		this.clock = clock;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public Mono<OAuth2AuthorizedClient> authorize(OAuth2AuthorizationContext context) {
+		OAuth2AuthorizedClient client = context.getAuthorizedClient();
+		if (client == null || client.getRefreshToken() == null || !expiresSoon(client.getAccessToken())) {
+			return Mono.empty();
+		}
+		String registrationId = client.getClientRegistration().getRegistrationId();
+		Key key = new Key(registrationId, context.getPrincipal().getName());
+		String expiringToken = client.getAccessToken().getTokenValue();
+		return refreshes.asMap().compute(key, (k, current) -> {
+			if (current != null && current.expiringToken().equals(expiringToken)) {
+				Counter.builder("gateway.token.refresh.shared")
+						.description("Requests that reused a token refresh started by another request")
+						.tag("registration", registrationId)
+						.register(meterRegistry)
+						.increment();
+				return current;
+			}
+			return new Refresh(expiringToken, refresh(k, expiringToken, context));
+		}).result();
+	}
+
+	private Mono<OAuth2AuthorizedClient> refresh(Key key, String expiringToken, OAuth2AuthorizationContext context) {
+		return Mono.defer(() -> {
+			Timer.Sample sample = Timer.start(meterRegistry);
+			return delegate.authorize(context)
+					.doOnSuccess(refreshed -> sample.stop(timer(key, "success")))
+					.doOnError(ex -> {
+						sample.stop(timer(key, "failure"));
+						// Неудачу не раздаём дальше: следующий запрос попробует обновить токен заново
+						refreshes.asMap().computeIfPresent(key,
+								(k, current) -> current.expiringToken().equals(expiringToken) ? null : current);
+					});
+		}).cache();
+	}
+
+	private Timer timer(Key key, String outcome) {
+		return Timer.builder("gateway.token.refresh")
+				.description("Access token refreshes against the authorization server")
+				.tag("registration", key.registrationId())
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+	private boolean expiresSoon(OAuth2AccessToken token) {
+		return token.getExpiresAt() != null && clock.instant().isAfter(token.getExpiresAt().minus(refreshBeforeExpiry));
+	}
+
+	private record Key(String registrationId, String principalName) {
+	}
+
+	private record Refresh(String expiringToken, Mono<OAuth2AuthorizedClient> result) {
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.itm.space.backend.client.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.RefreshTokenReactiveOAuth2AuthorizedClientProvider;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.DefaultReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Менеджер авторизованных клиентов для TokenRelay: заменяет менеджер gateway по умолчанию, у которого
+ * каждый запрос с истекающим токеном сам обновляет его в Keycloak.
+ */
+@Configuration
+public class TokenRelayConfiguration {
+
+	@Value("${token-relay.refresh-before-expiry}")
+	private Duration refreshBeforeExpiry;
+
+	@Bean
+	public ReactiveOAuth2AuthorizedClientManager authorizedClientManager(
+			ReactiveClientRegistrationRepository clientRegistrations,
+			ServerOAuth2AuthorizedClientRepository authorizedClients, MeterRegistry meterRegistry) {
+		Clock clock = Clock.systemUTC();
+		RefreshTokenReactiveOAuth2AuthorizedClientProvider refreshToken =
+				new RefreshTokenReactiveOAuth2AuthorizedClientProvider();
+		refreshToken.setClockSkew(refreshBeforeExpiry);
+		refreshToken.setClock(clock);
+		DefaultReactiveOAuth2AuthorizedClientManager manager =
+				new DefaultReactiveOAuth2AuthorizedClientManager(clientRegistrations, authorizedClients);
+		manager.setAuthorizedClientProvider(ReactiveOAuth2AuthorizedClientProviderBuilder.builder()
+				.authorizationCode()
+				.provider(new SingleFlightRefreshTokenProvider(refreshToken, refreshBeforeExpiry, clock, meterRegistry))
+				.build());
+		return manager;
+	}
+
+}
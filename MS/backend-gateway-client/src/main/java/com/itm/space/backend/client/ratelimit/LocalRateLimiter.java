@@ -0,0 +1,176 @@
+package com.itm.space.backend.client.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket в памяти шлюза для {@code RequestRateLimiter} — замена RedisRateLimiter, которому нужен Redis.
+ * Корзина своя на каждую пару маршрут + ключ; состояние корзины — одно число, теоретическое время прихода
+ * следующего запроса (GCRA), и меняется через CAS без блокировок. Корзина, к которой не обращались
+ * {@code rate-limit.idle-timeout}, удаляется; при следующем запросе она снова полная.
+ * <pre>
+ * filters:
+ *   - name: RequestRateLimiter
+ *     args:
+ *       local-rate-limiter.replenish-rate: 10
+ *       local-rate-limiter.burst-capacity: 20
+ * </pre>
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+	public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+	public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+	public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+
+	public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+
+	private final MeterRegistry meterRegistry;
+
+	private final LongSupplier nanoTime;
+
+	private final Cache<BucketKey, AtomicLong> buckets;
+
+	private final Map<String, Counter> allowed = new ConcurrentHashMap<>();
+
+	private final Map<String, Counter> denied = new ConcurrentHashMap<>();
+
+	@Autowired
+	public LocalRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry,
+			@Value("${rate-limit.idle-timeout}") Duration idleTimeout, @Value("${rate-limit.max-keys}") long maxKeys) {
+		this(configurationService, meterRegistry, idleTimeout, maxKeys, System::nanoTime);
+	}
+
+	LocalRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry, Duration idleTimeout,
+			long maxKeys, LongSupplier nanoTime) {
+		super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+		this.meterRegistry = meterRegistry;
+		this.nanoTime = nanoTime;
+		this.buckets = Caffeine.newBuilder()
+				.expireAfterAccess(idleTimeout)
+				.maximumSize(maxKeys)
+				.ticker(nanoTime::getAsLong)
+				.build();
+		Gauge.builder("gateway.rate-limit.buckets", buckets, Cache::estimatedSize)
+				.description("Token buckets currently held in memory")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public Mono<Response> isAllowed(String routeId, String id) {
+		Config config = getConfig().get(routeId);
+		if (config == null) {
+			return Mono.error(new IllegalArgumentException("No rate limit configured for route " + routeId));
+		}
+		long emissionInterval = TimeUnit.SECONDS.toNanos(1) / config.getReplenishRate();
+		long cost = emissionInterval * config.getRequestedTokens();
+		long burstTolerance = emissionInterval * config.getBurstCapacity();
+		long now = nanoTime.getAsLong();
+		AtomicLong bucket = buckets.get(new BucketKey(routeId, id), key -> new AtomicLong(now));
+		while (true) {
+			long arrival = bucket.get();
+			long next = Math.max(arrival, now) + cost;
+			long allowAt = next - burstTolerance;
+			if (allowAt > now) {
+				counter(denied, routeId, "denied").increment();
+				HttpHeaders headers = headers(config, 0);
+				long retryAfter = (allowAt - now + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+				headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+				return Mono.just(new Response(false, headers.toSingleValueMap()));
+			}
+			if (bucket.compareAndSet(arrival, next)) {
+				counter(allowed, routeId, "allowed").increment();
+				return Mono.just(new Response(true, headers(config, (now - allowAt) / emissionInterval)
+						.toSingleValueMap()));
+			}
+		}
+	}
+
+	private Counter counter(Map<String, Counter> counters, String routeId, String outcome) {
+		return counters.computeIfAbsent(routeId, route -> Counter.builder("gateway.rate-limit.requests")
+				.description("Requests checked by the local rate limiter")
+				.tag("route", route)
+				.tag("outcome", outcome)
+				.register(meterRegistry));
+	}
+
+	private static HttpHeaders headers(Config config, long remaining) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(REMAINING_HEADER, Long.toString(remaining));
+		headers.set(REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+		headers.set(BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+		return headers;
+	}
+
+	@Validated
+	public static class Config {
+
+		/**
+		 * Сколько запросов в секунду корзина восстанавливает.
+		 */
+		@Min(1)
+		private int replenishRate;
+
+		/**
+		 * Сколько запросов можно сделать подряд из полной корзины.
+		 */
+		@Min(1)
+		private int burstCapacity = 1;
+
+		@Min(1)
+		private int requestedTokens = 1;
+
+		public int getReplenishRate() {
+			return replenishRate;
+		}
+
+		public Config setReplenishRate(int replenishRate) {
+			this.replenishRate = replenishRate;
+			return this;
+		}
+
+		public int getBurstCapacity() {
+			return burstCapacity;
+		}
+
+		public Config setBurstCapacity(int burstCapacity) {
+			this.burstCapacity = burstCapacity;
+			return this;
+		}
+
+		public int getRequestedTokens() {
+			return requestedTokens;
+		}
+
+		public Config setRequestedTokens(int requestedTokens) {
+			this.requestedTokens = requestedTokens;
+			return this;
+		}
+
+	}
+
+	private record BucketKey(String routeId, String id) {
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.itm.space.backend.client.ratelimit;
+
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+
+/**
+ * Ключ лимита — имя пользователя, а до входа — адрес клиента.
+ * Префиксы не дают пользователю с именем-адресом делить корзину с анонимными запросами.
+ */
+@Component
+public class PrincipalOrAddressKeyResolver implements KeyResolver {
+
+	@Override
+	public Mono<String> resolve(ServerWebExchange exchange) {
+		return exchange.getPrincipal()
+				.map(Principal::getName)
+				.map(name -> "user:" + name)
+				.switchIfEmpty(Mono.fromSupplier(() -> {
+					InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+					return address == null ? null : "ip:" + address.getAddress().getHostAddress();
+				}));
+	}
+
+}
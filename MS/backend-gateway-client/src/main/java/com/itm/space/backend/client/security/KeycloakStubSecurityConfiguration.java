@@ -0,0 +1,38 @@
+package com.itm.space.backend.client.security;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.csrf.CookieServerCsrfTokenRepository;
+import org.springframework.security.web.server.csrf.CsrfToken;
+import reactor.core.publisher.Mono;
+
+/**
+ * Цепочка безопасности для нагрузочных прогонов: то же, что по умолчанию (вход через OAuth2, всё под авторизацией),
+ * но CSRF-токен отдаётся в cookie {@code XSRF-TOKEN}, чтобы генератор нагрузки мог отправлять POST через шлюз.
+ */
+@Configuration
+@Profile("keycloak-stub")
+public class KeycloakStubSecurityConfiguration {
+
+	@Bean
+	public SecurityWebFilterChain keycloakStubSecurityWebFilterChain(ServerHttpSecurity http) {
+		return http
+				.authorizeExchange(exchanges -> exchanges.anyExchange().authenticated())
+				.oauth2Login(Customizer.withDefaults())
+				.oauth2Client(Customizer.withDefaults())
+				.csrf(csrf -> csrf.csrfTokenRepository(CookieServerCsrfTokenRepository.withHttpOnlyFalse()))
+				// Токен создаётся лениво, и без подписки на него cookie не ставится
+				.addFilterAfter((exchange, chain) -> {
+					Mono<CsrfToken> csrfToken = exchange.getAttribute(CsrfToken.class.getName());
+					return csrfToken == null ? chain.filter(exchange)
+							: csrfToken.then(Mono.defer(() -> chain.filter(exchange)));
+				}, SecurityWebFiltersOrder.CSRF)
+				.build();
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.itm.space.backend.client.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.itm.space.backend.client.filter.ResponseCacheGatewayFilterFactory.CACHE_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+	private final AtomicInteger downstreamCalls = new AtomicInteger();
+
+	private final GatewayFilter filter = new ResponseCacheGatewayFilterFactory()
+			.apply(new ResponseCacheGatewayFilterFactory.Config().setTtl(Duration.ofMinutes(1)));
+
+	private String downstreamCacheControl;
+
+	private MediaType downstreamContentType = MediaType.APPLICATION_JSON;
+
+	@Test
+	void repeatedGet_ShouldBeServedFromCache() {
+		assertEquals("MISS", exchange("alice", MockServerHttpRequest.get("/api/users/1").build())
+				.getHeaders().getFirst(CACHE_HEADER));
+
+		MockServerHttpResponse cached = exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+
+		assertEquals("HIT", cached.getHeaders().getFirst(CACHE_HEADER));
+		assertEquals("{\"firstName\":\"John\"}", cached.getBodyAsString().block());
+		assertEquals(1, downstreamCalls.get());
+	}
+
+	@Test
+	void get_ByAnotherPrincipal_ShouldNotShareCachedResponse() {
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+		exchange("bob", MockServerHttpRequest.get("/api/users/1").build());
+
+		assertEquals(2, downstreamCalls.get());
+	}
+
+	@Test
+	void get_WhenDownstreamSaysNoStore_ShouldNotCache() {
+		downstreamCacheControl = "no-cache, no-store, max-age=0, must-revalidate";
+
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+
+		assertEquals(2, downstreamCalls.get());
+	}
+
+	@Test
+	void get_WithStreamingResponse_ShouldNotCache() {
+		downstreamContentType = MediaType.APPLICATION_NDJSON;
+
+		exchange("alice", MockServerHttpRequest.get("/api/users").build());
+		exchange("alice", MockServerHttpRequest.get("/api/users").build());
+
+		assertEquals(2, downstreamCalls.get());
+	}
+
+	@Test
+	void get_WithoutPrincipal_ShouldCallDownstreamOnce() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/1").build());
+
+		filter.filter(exchange, this::downstream).block();
+
+		assertEquals(1, downstreamCalls.get());
+	}
+
+	@Test
+	void post_ShouldEvictCachedResponsesOfSamePrincipal() {
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+		exchange("alice", MockServerHttpRequest.post("/api/users").build());
+
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+
+		assertEquals(3, downstreamCalls.get());
+	}
+
+	@Test
+	void get_WithMatchingIfNoneMatch_ShouldAnswerNotModifiedFromCache() {
+		exchange("alice", MockServerHttpRequest.get("/api/users/1").build());
+
+		MockServerHttpResponse response = exchange("alice", MockServerHttpRequest.get("/api/users/1")
+				.header(HttpHeaders.IF_NONE_MATCH, "\"v1\"")
+				.build());
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals(1, downstreamCalls.get());
+	}
+
+	private MockServerHttpResponse exchange(String principal, MockServerHttpRequest request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		filter.filter(exchange.mutate().principal(Mono.just((Principal) () -> principal)).build(), this::downstream)
+				.block();
+		return exchange.getResponse();
+	}
+
+	private Mono<Void> downstream(ServerWebExchange exchange) {
+		downstreamCalls.incrementAndGet();
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.OK);
+		response.getHeaders().setETag("\"v1\"");
+		response.getHeaders().setContentType(downstreamContentType);
+		if (downstreamCacheControl != null) {
+			response.getHeaders().setCacheControl(downstreamCacheControl);
+		}
+		return response.writeWith(Mono.just(response.bufferFactory()
+				.wrap("{\"firstName\":\"John\"}".getBytes(StandardCharsets.UTF_8))));
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.itm.space.backend.client.oauth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizationContext;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightRefreshTokenProviderTest {
+
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private static final ClientRegistration REGISTRATION = ClientRegistration.withRegistrationId("backend-gateway-client")
+			.clientId("backend-gateway-client")
+			.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+			.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+			.authorizationUri("http://keycloak/auth")
+			.tokenUri("http://keycloak/token")
+			.build();
+
+	private final AtomicInteger tokenRequests = new AtomicInteger();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private Mono<OAuth2AuthorizedClient> tokenResponse;
+
+	private final SingleFlightRefreshTokenProvider provider = new SingleFlightRefreshTokenProvider(context -> {
+		tokenRequests.incrementAndGet();
+		return tokenResponse;
+	}, Duration.ofSeconds(60), Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry);
+
+	@Test
+	void authorize_WithTokenFarFromExpiry_ShouldNotRefresh() {
+		tokenResponse = Mono.just(client("new", Duration.ofMinutes(5)));
+
+		assertNull(provider.authorize(context(client("old", Duration.ofMinutes(5)))).block());
+		assertEquals(0, tokenRequests.get());
+	}
+
+	@Test
+	void authorize_ConcurrentlyWithExpiringToken_ShouldRefreshOnce() {
+		Sinks.One<OAuth2AuthorizedClient> keycloak = Sinks.one();
+		tokenResponse = keycloak.asMono();
+		OAuth2AuthorizedClient expiring = client("old", Duration.ofSeconds(30));
+
+		CompletableFuture<OAuth2AuthorizedClient> first = provider.authorize(context(expiring)).toFuture();
+		CompletableFuture<OAuth2AuthorizedClient> second = provider.authorize(context(expiring)).toFuture();
+		OAuth2AuthorizedClient refreshed = client("new", Duration.ofMinutes(5));
+		keycloak.tryEmitValue(refreshed);
+
+		assertSame(refreshed, first.join());
+		assertSame(refreshed, second.join());
+		assertEquals(1, tokenRequests.get());
+		assertEquals(1, meterRegistry.get("gateway.token.refresh.shared").counter().count());
+	}
+
+	@Test
+	void authorize_WithOldTokenAfterRefresh_ShouldReturnRefreshedClient() {
+		OAuth2AuthorizedClient refreshed = client("new", Duration.ofMinutes(5));
+		tokenResponse = Mono.just(refreshed);
+		OAuth2AuthorizedClient expiring = client("old", Duration.ofSeconds(30));
+		provider.authorize(context(expiring)).block();
+
+		assertSame(refreshed, provider.authorize(context(expiring)).block());
+		assertEquals(1, tokenRequests.get());
+	}
+
+	@Test
+	void authorize_AfterFailedRefresh_ShouldTryAgain() {
+		OAuth2AuthorizedClient expiring = client("old", Duration.ofSeconds(30));
+		tokenResponse = Mono.error(new IllegalStateException("Token endpoint unavailable"));
+		assertThrows(IllegalStateException.class, () -> provider.authorize(context(expiring)).block());
+
+		OAuth2AuthorizedClient refreshed = client("new", Duration.ofMinutes(5));
+		tokenResponse = Mono.just(refreshed);
+
+		assertSame(refreshed, provider.authorize(context(expiring)).block());
+		assertEquals(2, tokenRequests.get());
+		assertEquals(1, meterRegistry.get("gateway.token.refresh").tag("outcome", "failure").timer().count());
+	}
+
+	private OAuth2AuthorizationContext context(OAuth2AuthorizedClient client) {
+		return OAuth2AuthorizationContext.withAuthorizedClient(client)
+				.principal(new TestingAuthenticationToken("alice", null))
+				.build();
+	}
+
+	private static OAuth2AuthorizedClient client(String token, Duration expiresIn) {
+		return new OAuth2AuthorizedClient(REGISTRATION, "alice",
+				new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, token, NOW.minusSeconds(240),
+						NOW.plus(expiresIn)),
+				new OAuth2RefreshToken("refresh-" + token, NOW.minusSeconds(240)));
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.itm.space.backend.client.oauth2;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.ReactiveOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRelayConfigurationTest {
+
+	private final AtomicInteger tokenRequests = new AtomicInteger();
+
+	private final CountDownLatch releaseTokenResponse = new CountDownLatch(1);
+
+	private final ServerOAuth2AuthorizedClientRepository authorizedClients = mock(ServerOAuth2AuthorizedClientRepository.class);
+
+	private HttpServer keycloak;
+
+	private ClientRegistration registration;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		keycloak = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		keycloak.createContext("/token", exchange -> {
+			tokenRequests.incrementAndGet();
+			try {
+				releaseTokenResponse.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] body = "{\"access_token\":\"new\",\"token_type\":\"Bearer\",\"expires_in\":300,\"refresh_token\":\"refresh-new\"}"
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		});
+		keycloak.start();
+		registration = ClientRegistration.withRegistrationId("backend-gateway-client")
+				.clientId("backend-gateway-client")
+				.clientSecret("secret")
+				.authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+				.redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+				.authorizationUri("http://localhost/auth")
+				.tokenUri("http://localhost:" + keycloak.getAddress().getPort() + "/token")
+				.build();
+		when(authorizedClients.saveAuthorizedClient(any(), any(), any())).thenReturn(Mono.empty());
+	}
+
+	@AfterEach
+	void tearDown() {
+		keycloak.stop(0);
+	}
+
+	@Test
+	void authorizedClientManager_ShouldRefreshExpiringTokenOnceForConcurrentRequests() {
+		new ApplicationContextRunner()
+				.withInitializer(context -> context.getBeanFactory()
+						.setConversionService(ApplicationConversionService.getSharedInstance()))
+				.withPropertyValues("token-relay.refresh-before-expiry=60s")
+				.withBean(ReactiveClientRegistrationRepository.class,
+						() -> new InMemoryReactiveClientRegistrationRepository(registration))
+				.withBean(ServerOAuth2AuthorizedClientRepository.class, () -> authorizedClients)
+				.withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+				.withUserConfiguration(TokenRelayConfiguration.class)
+				.run(context -> {
+					ReactiveOAuth2AuthorizedClientManager manager = context.getBean(ReactiveOAuth2AuthorizedClientManager.class);
+					// Истекает через 30 секунд — внутри запаса refresh-before-expiry
+					OAuth2AuthorizedClient expiring = new OAuth2AuthorizedClient(registration, "alice",
+							new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "old",
+									Instant.now().minusSeconds(240), Instant.now().plusSeconds(30)),
+							new OAuth2RefreshToken("refresh-old", Instant.now().minusSeconds(240)));
+
+					CompletableFuture<OAuth2AuthorizedClient> first = manager.authorize(request(expiring)).toFuture();
+					CompletableFuture<OAuth2AuthorizedClient> second = manager.authorize(request(expiring)).toFuture();
+					releaseTokenResponse.countDown();
+
+					assertEquals("new", first.get(5, TimeUnit.SECONDS).getAccessToken().getTokenValue());
+					assertEquals("new", second.get(5, TimeUnit.SECONDS).getAccessToken().getTokenValue());
+					assertEquals(1, tokenRequests.get());
+					assertEquals(1, context.getBean(MeterRegistry.class).get("gateway.token.refresh")
+							.tag("outcome", "success").timer().count());
+				});
+	}
+
+	private static OAuth2AuthorizeRequest request(OAuth2AuthorizedClient client) {
+		return OAuth2AuthorizeRequest.withAuthorizedClient(client)
+				.principal(new TestingAuthenticationToken("alice", null))
+				.attribute(ServerWebExchange.class.getName(), MockServerWebExchange.from(MockServerHttpRequest.get("/")))
+				.build();
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.itm.space.backend.client.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRateLimiterTest {
+
+	private static final String ROUTE = "resources";
+
+	private final AtomicLong nanoTime = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final LocalRateLimiter rateLimiter = new LocalRateLimiter(null, meterRegistry, Duration.ofMinutes(10),
+			1000, nanoTime::get);
+
+	@BeforeEach
+	void setUp() {
+		rateLimiter.getConfig().put(ROUTE, new LocalRateLimiter.Config().setReplenishRate(2).setBurstCapacity(3));
+	}
+
+	@Test
+	void isAllowed_WithinBurst_ShouldAllowAndCountDown() {
+		assertEquals("2", isAllowed("user:alice").getHeaders().get(LocalRateLimiter.REMAINING_HEADER));
+		assertEquals("1", isAllowed("user:alice").getHeaders().get(LocalRateLimiter.REMAINING_HEADER));
+		assertEquals("0", isAllowed("user:alice").getHeaders().get(LocalRateLimiter.REMAINING_HEADER));
+	}
+
+	@Test
+	void isAllowed_WhenBucketIsEmpty_ShouldDenyWithRetryAfter() {
+		exhaust("user:alice");
+
+		RateLimiter.Response response = isAllowed("user:alice");
+
+		assertFalse(response.isAllowed());
+		assertEquals("1", response.getHeaders().get(HttpHeaders.RETRY_AFTER));
+		assertEquals(1, meterRegistry.get("gateway.rate-limit.requests").tag("outcome", "denied").counter().count());
+	}
+
+	@Test
+	void isAllowed_AfterReplenishInterval_ShouldAllowAgain() {
+		exhaust("user:alice");
+
+		nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+		assertTrue(isAllowed("user:alice").isAllowed());
+		assertFalse(isAllowed("user:alice").isAllowed());
+	}
+
+	@Test
+	void isAllowed_ForAnotherKey_ShouldUseSeparateBucket() {
+		exhaust("user:alice");
+
+		assertTrue(isAllowed("user:bob").isAllowed());
+	}
+
+	@Test
+	void isAllowed_ForUnconfiguredRoute_ShouldFail() {
+		assertThrows(IllegalArgumentException.class, () -> rateLimiter.isAllowed("other", "user:alice").block());
+	}
+
+	private void exhaust(String id) {
+		for (int i = 0; i < 3; i++) {
+			assertTrue(isAllowed(id).isAllowed());
+		}
+	}
+
+	private RateLimiter.Response isAllowed(String id) {
+		return rateLimiter.isAllowed(ROUTE, id).block();
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.itm.space.backendresources.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запуск {@code java -jar target/benchmarks.jar [опции JMH]}. Если формат отчёта не задан явно,
+ * результаты пишутся в {@code jmh-result.json}, чтобы их можно было сравнивать между релизами.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", "jmh-result.json"));
+        }
+        Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,76 @@
+package com.itm.space.backendresources.benchmark;
+
+import com.itm.space.backendresources.security.KeycloakJwtAuthenticationConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Сравнивает {@link KeycloakJwtAuthenticationConverter} с прежним {@code SecurityConfiguration.convertJwtToken},
+ * который воспроизведён здесь как {@code legacy}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationConverterBenchmark {
+
+    @Param({"3", "20"})
+    public int roleCount;
+
+    private final KeycloakJwtAuthenticationConverter converter = new KeycloakJwtAuthenticationConverter(1024);
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        List<String> roles = IntStream.range(0, roleCount).mapToObj(index -> "ROLE" + index).toList();
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("0b7a2d4e-3d43-4a7c-9d0c-2f1d1e2f3a4b")
+                .claim("realm_access", Map.of("roles", roles))
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken interned() {
+        return converter.convert(jwt);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public AbstractAuthenticationToken legacy() {
+        Collection<GrantedAuthority> authorities = new ArrayList<>();
+        JwtAuthenticationToken authenticationToken = new JwtAuthenticationToken(jwt, authorities);
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        List<String> roles = (List<String>) realmAccess.get("roles");
+        for (String role : roles) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        return new JwtAuthenticationToken(jwt, authorities, authenticationToken.getName());
+    }
+}
@@ -0,0 +1,72 @@
+package com.itm.space.backendresources.benchmark;
+
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.mapper.UserMapper;
+import com.itm.space.backendresources.mapper.UserMapperImpl;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    /**
+     * Типичный пользователь — пара ролей по умолчанию и одна группа; модераторы и сервисные аккаунты — десятки.
+     */
+    @Param({"2", "10", "50"})
+    public int roleCount;
+
+    @Param({"1", "5", "20"})
+    public int groupCount;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+    private UserRepresentation userRepresentation;
+    private List<RoleRepresentation> roles;
+    private List<GroupRepresentation> groups;
+
+    @Setup
+    public void setUp() {
+        userRepresentation = new UserRepresentation();
+        userRepresentation.setId(UUID.randomUUID().toString());
+        userRepresentation.setUsername("jdoe");
+        userRepresentation.setFirstName("John");
+        userRepresentation.setLastName("Doe");
+        userRepresentation.setEmail("john.doe@example.com");
+        roles = IntStream.range(0, roleCount).mapToObj(index -> {
+            RoleRepresentation role = new RoleRepresentation();
+            role.setName("role-" + index);
+            return role;
+        }).toList();
+        groups = IntStream.range(0, groupCount).mapToObj(index -> {
+            GroupRepresentation group = new GroupRepresentation();
+            group.setName("group-" + index);
+            return group;
+        }).toList();
+    }
+
+    @Benchmark
+    public UserResponse userRepresentationToUserResponse() {
+        return userMapper.userRepresentationToUserResponse(userRepresentation, roles, groups);
+    }
+}
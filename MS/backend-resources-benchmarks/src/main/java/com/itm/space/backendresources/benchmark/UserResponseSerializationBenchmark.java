@@ -0,0 +1,55 @@
+package com.itm.space.backendresources.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.itm.space.backendresources.api.response.UserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseSerializationBenchmark {
+
+    @Param({"2", "50"})
+    public int membershipCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ObjectWriter userResponseWriter;
+    private UserResponse userResponse;
+
+    @Setup
+    public void setUp() {
+        userResponseWriter = objectMapper.writerFor(UserResponse.class);
+        List<String> roles = IntStream.range(0, membershipCount).mapToObj(index -> "role-" + index).toList();
+        List<String> groups = IntStream.range(0, membershipCount).mapToObj(index -> "group-" + index).toList();
+        userResponse = new UserResponse("John", "Doe", "john.doe@example.com", roles, groups);
+    }
+
+    @Benchmark
+    public byte[] objectMapper() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userResponse);
+    }
+
+    @Benchmark
+    public byte[] typedWriter() throws JsonProcessingException {
+        return userResponseWriter.writeValueAsBytes(userResponse);
+    }
+}
@@ -0,0 +1,112 @@
+package com.itm.space.backendresources.benchmark;
+
+import com.itm.space.backendresources.configuration.VirtualThreads;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность обработки запросов при большом числе одновременных клиентов: каждый запрос —
+ * три последовательных блокирующих похода в Keycloak по {@code roundTripMillis}, как {@code GET /api/users/{id}}
+ * без кэша. {@code platform} — пул из 200 потоков, как у Tomcat по умолчанию; {@code virtual} — поток на запрос.
+ * Счётчик {@code requests} показывает запросы в секунду. Режим {@code virtual} требует Java 21:
+ * {@code java -jar target/benchmarks.jar VirtualThreadBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int KEYCLOAK_ROUND_TRIPS = 3;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"200", "2000"})
+    public int concurrency;
+
+    @Param({"5"})
+    public int roundTripMillis;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutorService delegate;
+        if ("virtual".equals(threads)) {
+            delegate = VirtualThreads.newThreadPerTaskExecutor("request-");
+        } else {
+            delegate = new ThreadPoolExecutor(TOMCAT_MAX_THREADS, TOMCAT_MAX_THREADS, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new CustomizableThreadFactory("request-"));
+        }
+        executor = new DelegatingSecurityContextExecutorService(delegate);
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("moderator", "n/a", "ROLE_MODERATOR"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        SecurityContextHolder.clearContext();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long requests;
+    }
+
+    /**
+     * Одна операция — волна из {@code concurrency} одновременных запросов.
+     */
+    @Benchmark
+    public int requestWave(Counters counters) throws Exception {
+        List<Future<Integer>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(executor.submit(this::handleRequest));
+        }
+        int completed = 0;
+        for (Future<Integer> response : responses) {
+            completed += response.get();
+        }
+        counters.requests += completed;
+        return completed;
+    }
+
+    private int handleRequest() throws InterruptedException {
+        // Как UserController.hello: контроллер читает имя из контекста безопасности своего потока
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("Security context was not propagated");
+        }
+        for (int i = 0; i < KEYCLOAK_ROUND_TRIPS; i++) {
+            Thread.sleep(roundTripMillis);
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.itm.space.backendresources.api.request;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Поля {@code UserResponse}, которые можно запросить через {@code ?fields=}. {@code profile} — поле берётся
+ * из представления пользователя; роли и группы требуют отдельных вызовов Keycloak.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum UserField {
+    FIRST_NAME("firstName", true),
+    LAST_NAME("lastName", true),
+    EMAIL("email", true),
+    ROLES("roles", false),
+    GROUPS("groups", false);
+
+    private final String property;
+    private final boolean profile;
+
+    public static Set<UserField> parse(Collection<String> properties) {
+        Set<UserField> fields = EnumSet.noneOf(UserField.class);
+        for (String property : properties) {
+            if (property.isBlank()) {
+                continue;
+            }
+            fields.add(Arrays.stream(values())
+                    .filter(field -> field.property.equals(property.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new BackendResourcesException("Unknown field \"" + property.trim()
+                            + "\", expected one of firstName, lastName, email, roles, groups",
+                            HttpStatus.BAD_REQUEST)));
+        }
+        if (fields.isEmpty()) {
+            throw new BackendResourcesException("At least one field should be requested", HttpStatus.BAD_REQUEST);
+        }
+        return fields;
+    }
+}
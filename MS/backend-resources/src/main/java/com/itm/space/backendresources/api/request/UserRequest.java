@@ -5,6 +5,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class UserRequest {
     @NotBlank(message = "Username should not be blank")
@@ -20,5 +22,10 @@ public class UserRequest {
     private final String firstName;
     @NotBlank
     private final String lastName;
+    /**
+     * Realm-роли и группы (имя или путь), которые назначаются сразу после создания.
+     */
+    private List<@NotBlank String> roles;
+    private List<@NotBlank String> groups;
 }
 
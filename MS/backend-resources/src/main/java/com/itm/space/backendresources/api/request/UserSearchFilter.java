@@ -0,0 +1,17 @@
+package com.itm.space.backendresources.api.request;
+
+import lombok.Data;
+
+@Data
+public class UserSearchFilter {
+    private final String search;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final Boolean enabled;
+
+    public boolean isFieldFilter() {
+        return username != null || firstName != null || lastName != null || email != null || enabled != null;
+    }
+}
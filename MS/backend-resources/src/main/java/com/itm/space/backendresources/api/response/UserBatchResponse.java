@@ -0,0 +1,13 @@
+package com.itm.space.backendresources.api.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UserBatchResponse {
+    private final int total;
+    private final int created;
+    private final int failed;
+    private final List<UserBatchItemResponse> items;
+}
@@ -0,0 +1,22 @@
+package com.itm.space.backendresources.api.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserCreationStatusResponse {
+    private final UUID trackingId;
+    private final String username;
+    private final State state;
+    private final UUID userId;
+    private final String error;
+
+    public enum State {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+}
@@ -0,0 +1,12 @@
+package com.itm.space.backendresources.api.response;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class UserMultiGetFailureResponse {
+    private final UUID id;
+    private final int status;
+    private final String error;
+}
@@ -0,0 +1,14 @@
+package com.itm.space.backendresources.api.response;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+public class UserMultiGetResponse {
+    private final Map<UUID, UserResponse> users;
+    private final List<UUID> notFound;
+    private final List<UserMultiGetFailureResponse> failed;
+}
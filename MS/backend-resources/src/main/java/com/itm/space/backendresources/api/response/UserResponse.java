@@ -1,5 +1,6 @@
 package com.itm.space.backendresources.api.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.List;
@@ -11,4 +12,6 @@ public class UserResponse {
     private final String email;
     private final List<String> roles;
     private final List<String> groups;
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean stale;
 }
@@ -0,0 +1,14 @@
+package com.itm.space.backendresources.api.response;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class UserSearchResponse {
+    private final UUID id;
+    private final String username;
+    @JsonUnwrapped
+    private final UserResponse user;
+}
@@ -0,0 +1,15 @@
+package com.itm.space.backendresources.api.response;
+
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class UserSummaryResponse {
+    private final UUID id;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final Boolean enabled;
+}
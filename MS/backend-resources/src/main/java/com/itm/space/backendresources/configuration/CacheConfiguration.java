@@ -0,0 +1,48 @@
+package com.itm.space.backendresources.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itm.space.backendresources.api.response.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+public class CacheConfiguration {
+    @Value("${users.cache.ttl}")
+    private Duration userCacheTtl;
+    @Value("${users.cache.max-size}")
+    private long userCacheMaxSize;
+    @Value("${users.stale.ttl}")
+    private Duration staleTtl;
+    @Value("${users.stale.max-size}")
+    private long staleMaxSize;
+
+    @Bean
+    public Cache<UUID, UserResponse> userResponseCache(MeterRegistry meterRegistry) {
+        Cache<UUID, UserResponse> cache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(userCacheTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
+    }
+
+    /**
+     * Последний успешно прочитанный ответ по пользователю — отдаётся с пометкой stale, когда Keycloak недоступен.
+     */
+    @Bean
+    public Cache<UUID, UserResponse> staleUserResponseCache(MeterRegistry meterRegistry) {
+        Cache<UUID, UserResponse> cache = Caffeine.newBuilder()
+                .maximumSize(staleMaxSize)
+                .expireAfterWrite(staleTtl)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "users.stale");
+    }
+}
@@ -0,0 +1,59 @@
+package com.itm.space.backendresources.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfiguration {
+    @Value("${keycloak.lookup.pool-size}")
+    private int lookupPoolSize;
+    @Value("${keycloak.lookup.queue-capacity}")
+    private int lookupQueueCapacity;
+    @Value("${keycloak.bulk.pool-size}")
+    private int bulkPoolSize;
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreads;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService keycloakLookupExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("keycloak-lookup-");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(lookupPoolSize, lookupPoolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lookupQueueCapacity),
+                new CustomizableThreadFactory("keycloak-lookup-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService keycloakBulkExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("keycloak-bulk-");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(bulkPoolSize, bulkPoolSize,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("keycloak-bulk-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Задача получает контекст безопасности того потока, который её отправил.
+     */
+    private static ExecutorService virtualThreadExecutor(String prefix) {
+        return new DelegatingSecurityContextExecutorService(VirtualThreads.newThreadPerTaskExecutor(prefix));
+    }
+}
@@ -0,0 +1,26 @@
+package com.itm.space.backendresources.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * Успешные ответы на чтение пользователей помечаются {@code private, max-age}: по умолчанию Spring Security запрещает
+ * любое кэширование, и кэш ответов в gateway не смог бы ими воспользоваться. Заголовок ставит сам
+ * {@link com.itm.space.backendresources.controller.UserController} в ответ 200, поэтому ошибки (404, 503, 504)
+ * остаются некэшируемыми. Потоковая выдача списка не кэшируется — её тело не собирается в память целиком;
+ * статус асинхронного создания тоже — его опрашивают как раз ради изменений.
+ */
+@Configuration
+public class HttpCacheConfiguration {
+    @Value("${users.http-cache.max-age}")
+    private Duration maxAge;
+
+    @Bean
+    public CacheControl userCacheControl() {
+        return CacheControl.maxAge(maxAge).cachePrivate();
+    }
+}
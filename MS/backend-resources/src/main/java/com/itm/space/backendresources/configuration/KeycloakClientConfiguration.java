@@ -1,13 +1,28 @@
 package com.itm.space.backendresources.configuration;
 
-import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
+import com.itm.space.backendresources.keycloak.ServiceAccountTokenManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+import org.keycloak.admin.client.JacksonProvider;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RealmsResource;
+import org.keycloak.admin.client.resource.UsersResource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import static org.keycloak.OAuth2Constants.CLIENT_CREDENTIALS;
-import static org.keycloak.OAuth2Constants.PASSWORD;
+import javax.ws.rs.client.ClientBuilder;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class KeycloakClientConfiguration {
@@ -19,15 +34,77 @@ public class KeycloakClientConfiguration {
     private String authUrl;
     @Value("${keycloak.realm}")
     private String realm;
+    @Value("${keycloak.http.max-connections}")
+    private int maxConnections;
+    @Value("${keycloak.http.max-connections-per-route}")
+    private int maxConnectionsPerRoute;
+    @Value("${keycloak.http.connect-timeout}")
+    private Duration connectTimeout;
+    @Value("${keycloak.http.read-timeout}")
+    private Duration readTimeout;
+    @Value("${keycloak.http.lease-timeout}")
+    private Duration leaseTimeout;
+    @Value("${keycloak.http.keep-alive}")
+    private Duration keepAlive;
+    @Value("${keycloak.token.refresh-before-expiry}")
+    private Duration tokenRefreshBeforeExpiry;
+    @Value("${keycloak.token.check-interval}")
+    private Duration tokenCheckInterval;
+    @Value("${keycloak.token.wait-timeout}")
+    private Duration tokenWaitTimeout;
 
     @Bean
-    public Keycloak keycloak() {
-        return KeycloakBuilder.builder()
-                .serverUrl(authUrl)
-                .realm(realm)
-                .grantType(CLIENT_CREDENTIALS)
-                .clientId(clientId)
-                .clientSecret(secretKey)
+    public PoolingHttpClientConnectionManager keycloakConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(2_000);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "keycloak").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public ResteasyClient keycloakRestClient(PoolingHttpClientConnectionManager keycloakConnectionManager) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(keycloakConnectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) leaseTimeout.toMillis())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive.toMillis()) : keepAlive.toMillis();
+                })
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
                 .build();
+        ResteasyClientBuilder builder = (ResteasyClientBuilder) ClientBuilder.newBuilder();
+        builder.httpEngine(new ApacheHttpClient43Engine(httpClient));
+        builder.register(JacksonProvider.class, 100);
+        return builder.build();
+    }
+
+    @Bean
+    public ServiceAccountTokenManager keycloakTokenManager(ResteasyClient keycloakRestClient,
+                                                           MeterRegistry meterRegistry) {
+        return new ServiceAccountTokenManager(
+                keycloakRestClient.target(authUrl).path("realms").path(realm).path("protocol/openid-connect/token"),
+                clientId, secretKey,
+                tokenRefreshBeforeExpiry, tokenCheckInterval, tokenWaitTimeout,
+                meterRegistry);
+    }
+
+    @Bean
+    public RealmResource keycloakRealm(ResteasyClient keycloakRestClient,
+                                       ServiceAccountTokenManager keycloakTokenManager) {
+        ResteasyWebTarget adminTarget = keycloakRestClient.target(authUrl);
+        adminTarget.register(keycloakTokenManager);
+        return adminTarget.proxy(RealmsResource.class).realm(realm);
+    }
+
+    @Bean
+    public UsersResource keycloakUsers(RealmResource keycloakRealm) {
+        return keycloakRealm.users();
     }
 }
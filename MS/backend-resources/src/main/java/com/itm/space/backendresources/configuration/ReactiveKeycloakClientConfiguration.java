@@ -0,0 +1,82 @@
+package com.itm.space.backendresources.configuration;
+
+import com.itm.space.backendresources.keycloak.ServiceAccountTokenManager;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Неблокирующий клиент admin API для {@code /api/reactive/users}. Пул соединений общий для всех вызовов
+ * и настраивается теми же {@code keycloak.http.*}, что и пул RESTEasy; токен сервисного аккаунта тот же.
+ */
+@Configuration
+@ConditionalOnProperty("users.reactive.enabled")
+public class ReactiveKeycloakClientConfiguration {
+    @Value("${keycloak.auth-server-url}")
+    private String authUrl;
+    @Value("${keycloak.realm}")
+    private String realm;
+    @Value("${keycloak.http.max-connections}")
+    private int maxConnections;
+    @Value("${keycloak.http.connect-timeout}")
+    private Duration connectTimeout;
+    @Value("${keycloak.http.read-timeout}")
+    private Duration readTimeout;
+    @Value("${keycloak.http.lease-timeout}")
+    private Duration leaseTimeout;
+    @Value("${keycloak.http.keep-alive}")
+    private Duration keepAlive;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider keycloakConnectionProvider() {
+        return ConnectionProvider.builder("keycloak")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(leaseTimeout)
+                .maxIdleTime(keepAlive)
+                .evictInBackground(keepAlive)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient keycloakAdminWebClient(WebClient.Builder webClientBuilder,
+                                            ConnectionProvider keycloakConnectionProvider,
+                                            ServiceAccountTokenManager keycloakTokenManager) {
+        HttpClient httpClient = HttpClient.create(keycloakConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return webClientBuilder
+                .baseUrl(authUrl + "/admin/realms/" + realm)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(serviceAccountToken(keycloakTokenManager))
+                .build();
+    }
+
+    private static ExchangeFilterFunction serviceAccountToken(ServiceAccountTokenManager tokenManager) {
+        return (request, next) -> Mono.fromFuture(tokenManager::getAccessTokenAsync)
+                .flatMap(token -> {
+                    String authorization = "Bearer " + token;
+                    return next.exchange(ClientRequest.from(request)
+                                    .headers(headers -> headers.set(HttpHeaders.AUTHORIZATION, authorization))
+                                    .build())
+                            .doOnNext(response -> {
+                                if (response.statusCode() == HttpStatus.UNAUTHORIZED) {
+                                    tokenManager.rejected(authorization);
+                                }
+                            });
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package com.itm.space.backendresources.configuration;
+
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import javax.ws.rs.WebApplicationException;
+import java.time.Duration;
+
+@Configuration
+public class ResilienceConfiguration {
+    @Value("${keycloak.resilience.failure-rate-threshold}")
+    private float failureRateThreshold;
+    @Value("${keycloak.resilience.slow-call-duration}")
+    private Duration slowCallDuration;
+    @Value("${keycloak.resilience.slow-call-rate-threshold}")
+    private float slowCallRateThreshold;
+    @Value("${keycloak.resilience.sliding-window-size}")
+    private int slidingWindowSize;
+    @Value("${keycloak.resilience.minimum-calls}")
+    private int minimumCalls;
+    @Value("${keycloak.resilience.wait-in-open}")
+    private Duration waitInOpen;
+    @Value("${keycloak.resilience.half-open-calls}")
+    private int halfOpenCalls;
+    @Value("${keycloak.resilience.max-concurrent-calls}")
+    private int maxConcurrentCalls;
+    @Value("${keycloak.resilience.max-wait}")
+    private Duration maxWait;
+
+    @Bean
+    public CircuitBreaker keycloakCircuitBreaker(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallDuration)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumCalls)
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                // 404, 409 и прочие ответы 4xx — штатная работа, а не деградация Keycloak
+                .recordException(ResilienceConfiguration::isKeycloakFailure)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker("keycloak");
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                Counter.builder("keycloak.circuitbreaker.transitions")
+                        .description("Keycloak circuit breaker state changes")
+                        .tag("from", event.getStateTransition().getFromState().name())
+                        .tag("to", event.getStateTransition().getToState().name())
+                        .register(meterRegistry)
+                        .increment());
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead keycloakBulkhead(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        Bulkhead bulkhead = registry.bulkhead("keycloak");
+        Counter rejected = Counter.builder("keycloak.bulkhead.rejected")
+                .description("Keycloak calls rejected by the bulkhead")
+                .register(meterRegistry);
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected.increment());
+        return bulkhead;
+    }
+
+    @Bean
+    public KeycloakGuard keycloakGuard(CircuitBreaker keycloakCircuitBreaker, Bulkhead keycloakBulkhead,
+                                       MeterRegistry meterRegistry) {
+        return new KeycloakGuard(keycloakCircuitBreaker, keycloakBulkhead, waitInOpen, meterRegistry);
+    }
+
+    private static boolean isKeycloakFailure(Throwable ex) {
+        if (ex instanceof WebApplicationException webApplicationException) {
+            return webApplicationException.getResponse().getStatus() >= 500;
+        }
+        if (ex instanceof WebClientResponseException webClientResponseException) {
+            return webClientResponseException.getStatusCode().is5xxServerError();
+        }
+        return true;
+    }
+}
@@ -1,26 +1,55 @@
 package com.itm.space.backendresources.configuration;
 
+import com.itm.space.backendresources.security.CachingJwtDecoder;
+import com.itm.space.backendresources.security.KeycloakJwtAuthenticationConverter;
+import com.itm.space.backendresources.security.PersistentJwkSource;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoders;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.SupplierJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true)
 public class SecurityConfiguration {
+    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
+    private String issuerUri;
+    @Value("${keycloak.jwt.cache-size}")
+    private long jwtCacheSize;
+    @Value("${keycloak.jwt.max-role-combinations}")
+    private int maxRoleCombinations;
+    @Value("${keycloak.jwt.offline.jwk-set-uri}")
+    private URI jwkSetUri;
+    @Value("${keycloak.jwt.offline.cache-file}")
+    private Path jwkSetCacheFile;
+    @Value("${keycloak.jwt.offline.refresh-interval}")
+    private Duration jwkSetRefreshInterval;
+    @Value("${keycloak.jwt.offline.min-refetch-interval}")
+    private Duration jwkSetMinRefetchInterval;
+    @Value("${keycloak.jwt.offline.timeout}")
+    private Duration jwkSetTimeout;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -30,18 +59,39 @@ public class SecurityConfiguration {
                         .anyRequest().permitAll())
                 .oauth2ResourceServer()
                 .jwt()
-                .jwtAuthenticationConverter(SecurityConfiguration::convertJwtToken);
+                .jwtAuthenticationConverter(new KeycloakJwtAuthenticationConverter(maxRoleCombinations));
         return http.build();
     }
 
-    private static JwtAuthenticationToken convertJwtToken(Jwt jwt) {
-        Collection<GrantedAuthority> authorities = new ArrayList<>();
-        JwtAuthenticationToken authenticationToken = new JwtAuthenticationToken(jwt, authorities);
-        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
-        List<String> roles = (List<String>) realmAccess.get("roles");
-        for (String role : roles) {
-            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
-        }
-        return new JwtAuthenticationToken(jwt, authorities, authenticationToken.getName());
+    @Bean
+    public JwtDecoder jwtDecoder(ObjectProvider<PersistentJwkSource> jwkSource, MeterRegistry meterRegistry) {
+        PersistentJwkSource offlineJwkSource = jwkSource.getIfAvailable();
+        JwtDecoder signatureDecoder = offlineJwkSource != null
+                ? offlineJwtDecoder(offlineJwkSource)
+                : new SupplierJwtDecoder(() -> JwtDecoders.fromIssuerLocation(issuerUri));
+        CachingJwtDecoder jwtDecoder = new CachingJwtDecoder(signatureDecoder, jwtCacheSize, Clock.systemUTC());
+        CaffeineCacheMetrics.monitor(meterRegistry, jwtDecoder.getCache(), "jwt");
+        return jwtDecoder;
+    }
+
+    @Bean
+    @ConditionalOnProperty("keycloak.jwt.offline.enabled")
+    public PersistentJwkSource jwkSource(MeterRegistry meterRegistry) {
+        return new PersistentJwkSource(jwkSetUri, jwkSetCacheFile, jwkSetRefreshInterval,
+                jwkSetMinRefetchInterval, jwkSetTimeout, Clock.systemUTC(), meterRegistry);
+    }
+
+    /**
+     * Декодер без OIDC discovery: ключи берутся из {@link PersistentJwkSource}, issuer сверяется со значением из конфига.
+     */
+    private JwtDecoder offlineJwtDecoder(PersistentJwkSource jwkSource) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims проверяет валидатор Spring ниже, как и в декодере из issuer-uri
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder jwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        jwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return jwtDecoder;
     }
 }
@@ -0,0 +1,36 @@
+package com.itm.space.backendresources.configuration;
+
+import com.itm.space.backendresources.journal.UserCreationJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Path;
+import java.util.Base64;
+
+@Configuration
+@ConditionalOnProperty("users.async.enabled")
+public class UserCreationJournalConfiguration {
+    @Value("${users.async.journal.directory}")
+    private Path directory;
+    @Value("${users.async.journal.segment-size}")
+    private DataSize segmentSize;
+    @Value("${users.async.journal.fsync}")
+    private boolean fsync;
+    @Value("${users.async.journal.encryption-key}")
+    private String encryptionKey;
+
+    @Bean
+    public UserCreationJournal userCreationJournal() {
+        byte[] key = Base64.getDecoder().decode(encryptionKey.trim());
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalStateException("users.async.journal.encryption-key must be a base64 AES key "
+                    + "of 16, 24 or 32 bytes, got " + key.length);
+        }
+        return new UserCreationJournal(directory, Math.toIntExact(segmentSize.toBytes()), fsync,
+                new SecretKeySpec(key, "AES"));
+    }
+}
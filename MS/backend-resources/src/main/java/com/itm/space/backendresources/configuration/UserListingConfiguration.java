@@ -0,0 +1,48 @@
+package com.itm.space.backendresources.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Потоковая выдача списка пользователей может идти минутами, поэтому её асинхронная обработка получает
+ * свой тайм-аут {@code users.listing.stream-timeout}; остальные асинхронные ответы живут с обычным.
+ */
+@Configuration
+public class UserListingConfiguration {
+    /**
+     * Атрибут запроса, которым обработчик просит для своего асинхронного ответа тайм-аут потоковой выдачи.
+     */
+    public static final String STREAM_TIMEOUT_ATTRIBUTE = UserListingConfiguration.class.getName() + ".STREAM_TIMEOUT";
+
+    @Value("${users.listing.stream-timeout}")
+    private Duration streamTimeout;
+
+    @Bean
+    public WebMvcConfigurer userListingAsyncSupportConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        // Вызывается до startAsync, поэтому тайм-аут ещё попадает в AsyncContext
+                        if (request instanceof AsyncWebRequest asyncWebRequest && request.getAttribute(
+                                STREAM_TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                            asyncWebRequest.setTimeout(streamTimeout.toMillis());
+                        }
+                    }
+                });
+            }
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.itm.space.backendresources.configuration;
+
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.RoleGroupCatalog;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+
+@Configuration
+public class UserLookupConfiguration {
+    @Value("${users.single-flight.enabled}")
+    private boolean singleFlightEnabled;
+    @Value("${users.single-flight.wait-timeout}")
+    private Duration singleFlightWaitTimeout;
+    @Value("${users.index.enabled}")
+    private boolean indexEnabled;
+    @Value("${users.index.page-size}")
+    private int indexPageSize;
+    @Value("${users.index.refresh-interval}")
+    private Duration indexRefreshInterval;
+    @Value("${users.search-index.enabled}")
+    private boolean searchIndexEnabled;
+    @Value("${users.search-index.page-size}")
+    private int searchIndexPageSize;
+    @Value("${users.search-index.refresh-interval}")
+    private Duration searchIndexRefreshInterval;
+    @Value("${users.catalog.ttl}")
+    private Duration catalogTtl;
+    @Value("${users.catalog.min-refresh-interval}")
+    private Duration catalogMinRefreshInterval;
+
+    @Bean
+    public SingleFlight<UUID, UserResponse> userLookupSingleFlight(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("users", singleFlightEnabled, singleFlightWaitTimeout, meterRegistry);
+    }
+
+    @Bean
+    public MembershipIndex membershipIndex(RealmResource keycloakRealm, MeterRegistry meterRegistry) {
+        return new MembershipIndex(keycloakRealm, indexEnabled, indexPageSize, indexRefreshInterval, meterRegistry);
+    }
+
+    @Bean
+    public UserSearchIndex userSearchIndex(RealmResource keycloakRealm, MeterRegistry meterRegistry) {
+        return new UserSearchIndex(keycloakRealm, searchIndexEnabled, searchIndexPageSize, searchIndexRefreshInterval,
+                meterRegistry);
+    }
+
+    @Bean
+    public RoleGroupCatalog roleGroupCatalog(RealmResource keycloakRealm) {
+        return new RoleGroupCatalog(keycloakRealm, catalogTtl, catalogMinRefreshInterval, Clock.systemUTC());
+    }
+}
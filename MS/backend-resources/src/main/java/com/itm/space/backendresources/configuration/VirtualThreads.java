@@ -0,0 +1,75 @@
+package com.itm.space.backendresources.configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Виртуальные потоки через рефлексию: сервис собирается под Java 17, а режим
+ * {@code spring.threads.virtual.enabled} работает только на JVM, где они уже не preview (21+).
+ */
+public final class VirtualThreads {
+    private static final int MIN_FEATURE_VERSION = 21;
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+    }
+
+    /**
+     * Фабрика виртуальных потоков с именами {@code prefix0}, {@code prefix1}, ...
+     */
+    public static ThreadFactory threadFactory(String prefix) {
+        requireSupported();
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not create a virtual thread factory", unwrap(ex));
+        }
+    }
+
+    /**
+     * Executor, который запускает каждую задачу в новом виртуальном потоке. Очереди и лимита нет —
+     * одновременные вызовы Keycloak ограничивают bulkhead и пул соединений HTTP-клиента.
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory threadFactory = threadFactory(prefix);
+        try {
+            Method factoryMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) factoryMethod.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not create a virtual thread executor", unwrap(ex));
+        }
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (!isSupported()) {
+            return false;
+        }
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException ex) {
+            return false;
+        }
+    }
+
+    private static void requireSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads need Java " + MIN_FEATURE_VERSION
+                    + " or newer, running on " + Runtime.version());
+        }
+    }
+
+    private static Throwable unwrap(ReflectiveOperationException ex) {
+        return ex instanceof InvocationTargetException invocation && invocation.getCause() != null
+                ? invocation.getCause()
+                : ex;
+    }
+}
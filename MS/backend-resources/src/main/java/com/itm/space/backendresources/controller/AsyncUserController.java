@@ -0,0 +1,48 @@
+package com.itm.space.backendresources.controller;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse;
+import com.itm.space.backendresources.service.AsyncUserCreationService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/users/async")
+@RequiredArgsConstructor
+@ConditionalOnProperty("users.async.enabled")
+public class AsyncUserController {
+    private final AsyncUserCreationService asyncUserCreationService;
+
+    @PostMapping
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public ResponseEntity<UserCreationStatusResponse> create(@RequestBody @Valid UserRequest userRequest) {
+        UserCreationStatusResponse status = asyncUserCreationService.submit(userRequest);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{trackingId}")
+                        .buildAndExpand(status.getTrackingId())
+                        .toUri())
+                .body(status);
+    }
+
+    @GetMapping("/{trackingId}")
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public UserCreationStatusResponse getStatus(@PathVariable UUID trackingId) {
+        return asyncUserCreationService.getStatus(trackingId);
+    }
+}
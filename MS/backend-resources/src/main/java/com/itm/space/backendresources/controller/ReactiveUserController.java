@@ -0,0 +1,45 @@
+package com.itm.space.backendresources.controller;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.service.ReactiveUserService;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Неблокирующий вариант {@link UserController}: Spring MVC отдаёт {@link Mono} асинхронно,
+ * поток Tomcat освобождается, пока идут вызовы Keycloak.
+ */
+@RestController
+@RequestMapping("/api/reactive/users")
+@RequiredArgsConstructor
+@ConditionalOnProperty("users.reactive.enabled")
+public class ReactiveUserController {
+    private final ReactiveUserService reactiveUserService;
+
+    @PostMapping
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public Mono<Void> create(@RequestBody @Valid UserRequest userRequest) {
+        return reactiveUserService.createUser(userRequest).then();
+    }
+
+    @GetMapping("/{id}")
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public Mono<UserResponse> getUserById(@PathVariable UUID id) {
+        return reactiveUserService.getUserById(id);
+    }
+}
@@ -1,6 +1,11 @@
 package com.itm.space.backendresources.controller;
 
 import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.exception.KeycloakUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,13 +17,25 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class RestExceptionHandler {
+    private final MeterRegistry meterRegistry;
 
     @ExceptionHandler(BackendResourcesException.class)
     public ResponseEntity<String> handleException(BackendResourcesException backendResourcesException) {
+        countException(backendResourcesException);
         return new ResponseEntity<>(backendResourcesException.getMessage(), backendResourcesException.getHttpStatus());
     }
 
+    @ExceptionHandler(KeycloakUnavailableException.class)
+    public ResponseEntity<String> handleKeycloakUnavailable(KeycloakUnavailableException keycloakUnavailableException) {
+        countException(keycloakUnavailableException);
+        return ResponseEntity.status(keycloakUnavailableException.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                        Math.max(1, keycloakUnavailableException.getRetryAfter().toSeconds())))
+                .body(keycloakUnavailableException.getMessage());
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Map<String, String> handleInvalidArgument(MethodArgumentNotValidException ex) {
@@ -28,4 +45,12 @@ public class RestExceptionHandler {
         return errorMap;
     }
 
+    private void countException(BackendResourcesException backendResourcesException) {
+        HttpStatus status = backendResourcesException.getHttpStatus();
+        Counter.builder("backend.exceptions")
+                .description("BackendResourcesException responses by HTTP status")
+                .tag("status", status != null ? String.valueOf(status.value()) : "none")
+                .register(meterRegistry)
+                .increment();
+    }
 }
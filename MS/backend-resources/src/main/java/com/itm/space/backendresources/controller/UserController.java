@@ -1,29 +1,66 @@
 package com.itm.space.backendresources.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.request.UserSearchFilter;
+import com.itm.space.backendresources.api.response.UserBatchResponse;
+import com.itm.space.backendresources.api.response.UserMultiGetResponse;
 import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.api.response.UserSearchResponse;
+import com.itm.space.backendresources.api.response.UserSummaryResponse;
+import com.itm.space.backendresources.configuration.UserListingConfiguration;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.service.UserBatchService;
+import com.itm.space.backendresources.service.UserListingService;
 import com.itm.space.backendresources.service.UserService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.Principal;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final UserBatchService userBatchService;
+    private final UserListingService userListingService;
+    private final ObjectMapper objectMapper;
+    private final CacheControl userCacheControl;
 
     @PostMapping
     @Secured("ROLE_MODERATOR")
@@ -32,11 +69,76 @@ public class UserController {
         userService.createUser(userRequest);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public UserBatchResponse createBatch(@RequestBody List<UserRequest> userRequests) {
+        return userBatchService.createUsers(userRequests);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public UserBatchResponse createBatchFromNdjson(InputStream body) {
+        return userBatchService.createUsers(readNdjson(body));
+    }
+
     @GetMapping("/{id}")
     @Secured("ROLE_MODERATOR")
     @SecurityRequirement(name = "oauth2_auth_code")
-    public UserResponse getUserById(@PathVariable UUID id) {
-        return userService.getUserById(id);
+    public ResponseEntity<UserResponse> getUserById(@PathVariable UUID id) {
+        return ResponseEntity.ok().cacheControl(userCacheControl).body(userService.getUserById(id));
+    }
+
+    /**
+     * В ответе только запрошенные поля (и {@code stale}, если ответ устаревший); ответ без {@code fields} не меняется.
+     */
+    @GetMapping(value = "/{id}", params = "fields")
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public ResponseEntity<ObjectNode> getUserFieldsById(@PathVariable UUID id, @RequestParam List<String> fields) {
+        Set<UserField> requested = UserField.parse(fields);
+        ObjectNode user = objectMapper.valueToTree(userService.getUserById(id, requested));
+        Set<String> properties = new HashSet<>(Set.of("stale"));
+        requested.forEach(field -> properties.add(field.getProperty()));
+        return ResponseEntity.ok().cacheControl(userCacheControl).body(user.retain(properties));
+    }
+
+    @GetMapping(params = "ids")
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public ResponseEntity<UserMultiGetResponse> getUsersByIds(@RequestParam List<UUID> ids) {
+        UserMultiGetResponse response = userBatchService.getUsers(ids);
+        // Ответ с ошибками по отдельным id не кэшируется, чтобы повтор запроса дошёл до Keycloak
+        CacheControl cacheControl = response.getFailed().isEmpty() ? userCacheControl : CacheControl.noStore();
+        return ResponseEntity.ok().cacheControl(cacheControl).body(response);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public ResponseEntity<StreamingResponseBody> listUsers(@ModelAttribute UserSearchFilter filter,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                           String accept,
+                                                           HttpServletRequest request) {
+        request.setAttribute(UserListingConfiguration.STREAM_TIMEOUT_ATTRIBUTE, Boolean.TRUE);
+        if (accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(output -> writeNdjson(filter, output));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(output -> writeJsonArray(filter, output));
+    }
+
+    @GetMapping("/search")
+    @Secured("ROLE_MODERATOR")
+    @SecurityRequirement(name = "oauth2_auth_code")
+    public ResponseEntity<List<UserSearchResponse>> searchUsers(@RequestParam("q") String query,
+                                                                @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok().cacheControl(userCacheControl).body(userListingService.searchUsers(query, limit));
     }
 
     @GetMapping("/hello")
@@ -45,4 +147,34 @@ public class UserController {
     public String hello() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
+
+    private void writeNdjson(UserSearchFilter filter, OutputStream output) throws IOException {
+        try (Stream<UserSummaryResponse> users = userListingService.streamUsers(filter);
+             SequenceWriter writer = objectMapper.writerFor(UserSummaryResponse.class)
+                     .withRootValueSeparator("\n")
+                     .writeValues(output)) {
+            for (Iterator<UserSummaryResponse> iterator = users.iterator(); iterator.hasNext(); ) {
+                writer.write(iterator.next());
+            }
+        }
+    }
+
+    private void writeJsonArray(UserSearchFilter filter, OutputStream output) throws IOException {
+        try (Stream<UserSummaryResponse> users = userListingService.streamUsers(filter);
+             JsonGenerator generator = objectMapper.createGenerator(output)) {
+            generator.writeStartArray();
+            for (Iterator<UserSummaryResponse> iterator = users.iterator(); iterator.hasNext(); ) {
+                generator.writeObject(iterator.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private List<UserRequest> readNdjson(InputStream body) {
+        try (MappingIterator<UserRequest> iterator = objectMapper.readerFor(UserRequest.class).readValues(body)) {
+            return iterator.readAll();
+        } catch (IOException ex) {
+            throw new BackendResourcesException("Malformed NDJSON: " + ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
 }
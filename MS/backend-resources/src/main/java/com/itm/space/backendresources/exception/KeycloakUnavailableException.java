@@ -0,0 +1,17 @@
+package com.itm.space.backendresources.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+@Getter
+public class KeycloakUnavailableException extends BackendResourcesException {
+
+    private final Duration retryAfter;
+
+    public KeycloakUnavailableException(String message, Duration retryAfter) {
+        super(message, HttpStatus.SERVICE_UNAVAILABLE);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,20 @@
+package com.itm.space.backendresources.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.UUID;
+
+/**
+ * Пользователь создан, но не получил роли или группы, и удалить его не удалось — его нужно удалить или донастроить вручную.
+ */
+@Getter
+public class OrphanedUserException extends BackendResourcesException {
+
+    private final UUID userId;
+
+    public OrphanedUserException(UUID userId, String message) {
+        super(message, HttpStatus.INTERNAL_SERVER_ERROR);
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,240 @@
+package com.itm.space.backendresources.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Локальный индекс ролей и групп реалма: кому какие realm-роли назначены напрямую и в каких группах состоит.
+ * Строится постраничным обходом admin API и периодически пересобирается целиком, новый снимок подменяет старый.
+ * Пользователей без ролей и групп в индексе нет — для них {@link #find(UUID)} пуст и надо идти в Keycloak.
+ */
+@Slf4j
+public class MembershipIndex implements AutoCloseable {
+    private final RealmResource realm;
+    private final int pageSize;
+    private final ScheduledExecutorService scheduler;
+    private final Timer syncSuccess;
+    private final Timer syncFailure;
+    private volatile Snapshot snapshot;
+
+    public MembershipIndex(RealmResource realm, boolean enabled, int pageSize, Duration refreshInterval,
+                           MeterRegistry meterRegistry) {
+        this.realm = realm;
+        this.pageSize = pageSize;
+        this.syncSuccess = syncTimer("success", meterRegistry);
+        this.syncFailure = syncTimer("failure", meterRegistry);
+        Gauge.builder("users.index.users", this, index -> index.snapshot == null ? 0 : index.snapshot.size())
+                .description("Users with at least one role or group in the membership index")
+                .register(meterRegistry);
+        if (enabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("membership-index-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::sync, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public Optional<Membership> find(UUID userId) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : current.find(userId);
+    }
+
+    public void sync() {
+        long start = System.nanoTime();
+        try {
+            Builder builder = new Builder();
+            for (RoleRepresentation role : realm.roles().list()) {
+                int roleCode = builder.role(role.getName());
+                page((first, max) -> realm.roles().get(role.getName()).getRoleUserMembers(first, max),
+                        user -> builder.addRole(user, roleCode));
+            }
+            Deque<GroupRepresentation> groups = new ArrayDeque<>();
+            page((first, max) -> realm.groups().groups(first, max), groups::add);
+            while (!groups.isEmpty()) {
+                GroupRepresentation group = groups.poll();
+                int groupCode = builder.group(group.getName());
+                page((first, max) -> realm.groups().group(group.getId()).members(first, max),
+                        user -> builder.addGroup(user, groupCode));
+                if (group.getSubGroups() != null) {
+                    groups.addAll(group.getSubGroups());
+                }
+            }
+            snapshot = builder.build();
+            syncSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("Membership index rebuilt: {} users", snapshot.size());
+        } catch (RuntimeException ex) {
+            syncFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("Membership index sync failed, keeping previous snapshot", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private <T> void page(BiFunction<Integer, Integer, ? extends Collection<T>> fetch,
+                          Consumer<T> consumer) {
+        for (int first = 0; ; first += pageSize) {
+            Collection<T> page = fetch.apply(first, pageSize);
+            page.forEach(consumer);
+            if (page.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    private static Timer syncTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("users.index.sync")
+                .description("Full membership index rebuilds from Keycloak")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public record Membership(List<String> roles, List<String> groups) {
+    }
+
+    private static final class Builder {
+        private final Map<String, Integer> roleCodes = new HashMap<>();
+        private final Map<String, Integer> groupCodes = new HashMap<>();
+        private final Map<UUID, int[]> roles = new HashMap<>();
+        private final Map<UUID, int[]> groups = new HashMap<>();
+
+        int role(String name) {
+            return roleCodes.computeIfAbsent(name, key -> roleCodes.size());
+        }
+
+        int group(String name) {
+            return groupCodes.computeIfAbsent(name, key -> groupCodes.size());
+        }
+
+        void addRole(UserRepresentation user, int roleCode) {
+            roles.merge(UUID.fromString(user.getId()), new int[]{roleCode}, Builder::append);
+        }
+
+        void addGroup(UserRepresentation user, int groupCode) {
+            groups.merge(UUID.fromString(user.getId()), new int[]{groupCode}, Builder::append);
+        }
+
+        Snapshot build() {
+            List<UUID> users = new ArrayList<>(roles.keySet());
+            groups.keySet().stream().filter(user -> !roles.containsKey(user)).forEach(users::add);
+            users.sort(null);
+
+            long[] mostSignificant = new long[users.size()];
+            long[] leastSignificant = new long[users.size()];
+            int[] roleOffsets = new int[users.size() + 1];
+            int[] groupOffsets = new int[users.size() + 1];
+            int[] roleCodesFlat = new int[roles.values().stream().mapToInt(codes -> codes.length).sum()];
+            int[] groupCodesFlat = new int[groups.values().stream().mapToInt(codes -> codes.length).sum()];
+            for (int i = 0; i < users.size(); i++) {
+                UUID user = users.get(i);
+                mostSignificant[i] = user.getMostSignificantBits();
+                leastSignificant[i] = user.getLeastSignificantBits();
+                int[] userRoles = roles.getOrDefault(user, new int[0]);
+                int[] userGroups = groups.getOrDefault(user, new int[0]);
+                System.arraycopy(userRoles, 0, roleCodesFlat, roleOffsets[i], userRoles.length);
+                System.arraycopy(userGroups, 0, groupCodesFlat, groupOffsets[i], userGroups.length);
+                roleOffsets[i + 1] = roleOffsets[i] + userRoles.length;
+                groupOffsets[i + 1] = groupOffsets[i] + userGroups.length;
+            }
+            return new Snapshot(names(roleCodes), names(groupCodes), mostSignificant, leastSignificant,
+                    roleOffsets, roleCodesFlat, groupOffsets, groupCodesFlat);
+        }
+
+        private static String[] names(Map<String, Integer> codes) {
+            String[] names = new String[codes.size()];
+            codes.forEach((name, code) -> names[code] = name);
+            return names;
+        }
+
+        private static int[] append(int[] codes, int[] added) {
+            int[] merged = Arrays.copyOf(codes, codes.length + added.length);
+            System.arraycopy(added, 0, merged, codes.length, added.length);
+            return merged;
+        }
+    }
+
+    /**
+     * Неизменяемый снимок: пользователи отсортированы по UUID, членства лежат подряд в плоских массивах кодов
+     * (смещения пользователя i — {@code [offsets[i], offsets[i + 1])}), имена ролей и групп хранятся по одному разу.
+     */
+    private record Snapshot(String[] roleNames, String[] groupNames,
+                            long[] mostSignificant, long[] leastSignificant,
+                            int[] roleOffsets, int[] roleCodes,
+                            int[] groupOffsets, int[] groupCodes) {
+
+        int size() {
+            return mostSignificant.length;
+        }
+
+        Optional<Membership> find(UUID userId) {
+            int index = indexOf(userId.getMostSignificantBits(), userId.getLeastSignificantBits());
+            if (index < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new Membership(
+                    decode(roleNames, roleCodes, roleOffsets[index], roleOffsets[index + 1]),
+                    decode(groupNames, groupCodes, groupOffsets[index], groupOffsets[index + 1])));
+        }
+
+        private int indexOf(long most, long least) {
+            int low = 0;
+            int high = mostSignificant.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = mostSignificant[mid] != most
+                        ? Long.compare(mostSignificant[mid], most)
+                        : Long.compare(leastSignificant[mid], least);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private static List<String> decode(String[] names, int[] codes, int from, int to) {
+            String[] decoded = new String[to - from];
+            for (int i = from; i < to; i++) {
+                decoded[i - from] = names[codes[i]];
+            }
+            return List.of(decoded);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.itm.space.backendresources.index;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.http.HttpStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Realm-роли и группы реалма по имени — для назначения при создании пользователя без лишних запросов к Keycloak.
+ * Группа ищется по пути ({@code /parent/child}) или по имени, если оно уникально в реалме.
+ * Каталог перечитывается раз в {@code ttl}; на незнакомое имя — сразу, но не чаще {@code minRefreshInterval}.
+ */
+@Slf4j
+public class RoleGroupCatalog {
+    private final RealmResource realm;
+    private final Duration ttl;
+    private final Duration minRefreshInterval;
+    private final Clock clock;
+    private volatile Snapshot snapshot;
+    private Instant lastRefreshAttempt = Instant.MIN;
+
+    public RoleGroupCatalog(RealmResource realm, Duration ttl, Duration minRefreshInterval, Clock clock) {
+        this.realm = realm;
+        this.ttl = ttl;
+        this.minRefreshInterval = minRefreshInterval;
+        this.clock = clock;
+    }
+
+    /**
+     * @throws BackendResourcesException 400, если какой-то роли или группы нет в реалме
+     */
+    public Assignments resolve(List<String> roleNames, List<String> groupNames) {
+        List<String> roles = roleNames == null ? List.of() : roleNames;
+        List<String> groups = groupNames == null ? List.of() : groupNames;
+        if (roles.isEmpty() && groups.isEmpty()) {
+            return Assignments.NONE;
+        }
+        Snapshot current = snapshot;
+        if (current == null || current.loadedAt().plus(ttl).isBefore(clock.instant())) {
+            current = refresh(current);
+        }
+        List<String> unknown = current.unknown(roles, groups);
+        if (!unknown.isEmpty()) {
+            // Роль или группу могли только что завести в Keycloak
+            current = refreshForUnknownName(current);
+            unknown = current.unknown(roles, groups);
+        }
+        if (!unknown.isEmpty()) {
+            throw new BackendResourcesException("Unknown " + String.join(", ", unknown), HttpStatus.BAD_REQUEST);
+        }
+        return new Assignments(roles.stream().distinct().map(current.roles()::get).toList(),
+                groups.stream().map(current::group).distinct().toList());
+    }
+
+    private synchronized Snapshot refresh(Snapshot stale) {
+        if (snapshot != stale) {
+            return snapshot;
+        }
+        lastRefreshAttempt = clock.instant();
+        try {
+            Map<String, RoleRepresentation> roles = new HashMap<>();
+            realm.roles().list().forEach(role -> roles.put(role.getName(), role));
+            Map<String, GroupRepresentation> groupsByPath = new HashMap<>();
+            Map<String, GroupRepresentation> groupsByName = new HashMap<>();
+            Set<String> ambiguousNames = new HashSet<>();
+            Deque<GroupRepresentation> groups = new ArrayDeque<>(realm.groups().groups());
+            while (!groups.isEmpty()) {
+                GroupRepresentation group = groups.poll();
+                groupsByPath.put(group.getPath(), group);
+                if (groupsByName.putIfAbsent(group.getName(), group) != null) {
+                    ambiguousNames.add(group.getName());
+                }
+                if (group.getSubGroups() != null) {
+                    groups.addAll(group.getSubGroups());
+                }
+            }
+            ambiguousNames.forEach(groupsByName::remove);
+            snapshot = new Snapshot(roles, groupsByPath, groupsByName, clock.instant());
+            log.info("Role and group catalog loaded: {} roles, {} groups", roles.size(), groupsByPath.size());
+        } catch (RuntimeException ex) {
+            if (stale == null) {
+                log.error("Could not load role and group catalog", ex);
+                throw new BackendResourcesException("Role and group catalog is unavailable: " + ex.getMessage(),
+                        HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            log.warn("Role and group catalog refresh failed, keeping previous snapshot: {}", ex.getMessage());
+        }
+        return snapshot;
+    }
+
+    private synchronized Snapshot refreshForUnknownName(Snapshot current) {
+        if (snapshot == current && lastRefreshAttempt.plus(minRefreshInterval).isBefore(clock.instant())) {
+            return refresh(current);
+        }
+        return snapshot;
+    }
+
+    public record Assignments(List<RoleRepresentation> roles, List<GroupRepresentation> groups) {
+        public static final Assignments NONE = new Assignments(List.of(), List.of());
+
+        public boolean isEmpty() {
+            return roles.isEmpty() && groups.isEmpty();
+        }
+    }
+
+    private record Snapshot(Map<String, RoleRepresentation> roles, Map<String, GroupRepresentation> groupsByPath,
+                            Map<String, GroupRepresentation> groupsByName, Instant loadedAt) {
+
+        GroupRepresentation group(String nameOrPath) {
+            return nameOrPath.startsWith("/") ? groupsByPath.get(nameOrPath) : groupsByName.get(nameOrPath);
+        }
+
+        List<String> unknown(List<String> roleNames, List<String> groupNames) {
+            List<String> unknown = new ArrayList<>();
+            roleNames.stream()
+                    .filter(name -> !roles.containsKey(name))
+                    .forEach(name -> unknown.add("role \"" + name + "\""));
+            groupNames.stream()
+                    .filter(name -> group(name) == null)
+                    .forEach(name -> unknown.add("group \"" + name + "\""));
+            return unknown;
+        }
+    }
+}
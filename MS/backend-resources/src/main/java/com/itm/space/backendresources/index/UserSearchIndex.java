@@ -0,0 +1,313 @@
+package com.itm.space.backendresources.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Префиксный индекс пользователей реалма по username, email, имени и фамилии для подсказок при вводе.
+ * Все термы лежат в одном отсортированном массиве, поиск — бинарный поиск начала диапазона и проход по нему.
+ * Как и {@link MembershipIndex}, периодически пересобирается целиком из admin API; пользователи, созданные
+ * через этот сервис, видны сразу — до пересборки они лежат в небольшом дополнительном снимке.
+ */
+@Slf4j
+public class UserSearchIndex implements AutoCloseable {
+    private static final int USERNAME = 0;
+    private static final int EMAIL = 1;
+    private static final int FIRST_NAME = 2;
+    private static final int LAST_NAME = 3;
+    private static final int FIELDS = 4;
+    private static final int[] FIELD_WEIGHTS = {40, 30, 10, 20};
+    private static final int EXACT_MATCH_BONUS = 100;
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::score).reversed()
+            .thenComparing(Candidate::username, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final RealmResource realm;
+    private final int pageSize;
+    private final ScheduledExecutorService scheduler;
+    private final Timer syncSuccess;
+    private final Timer syncFailure;
+    private volatile Snapshot snapshot;
+    private final Map<UUID, Added> added = new LinkedHashMap<>();
+    private long addedSequence;
+    private volatile Snapshot addedSnapshot;
+
+    public UserSearchIndex(RealmResource realm, boolean enabled, int pageSize, Duration refreshInterval,
+                           MeterRegistry meterRegistry) {
+        this.realm = realm;
+        this.pageSize = pageSize;
+        this.syncSuccess = syncTimer("success", meterRegistry);
+        this.syncFailure = syncTimer("failure", meterRegistry);
+        Gauge.builder("users.search.index.users", this, index -> index.snapshot == null ? 0 : index.snapshot.size())
+                .description("Users in the prefix search index")
+                .register(meterRegistry);
+        if (enabled) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-search-index-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            scheduler.scheduleWithFixedDelay(this::sync, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Каждое слово запроса должно быть префиксом хотя бы одного поля пользователя.
+     * Выше ранжируются точные совпадения, затем совпадения по username, email, фамилии и имени.
+     * Ранжируются все пользователи с подходящим префиксом, в памяти держится только топ из {@code limit}.
+     */
+    public List<Hit> search(String query, int limit) {
+        Snapshot current = snapshot;
+        String[] tokens = tokens(query);
+        if (current == null || tokens.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        Snapshot recent = addedSnapshot;
+        PriorityQueue<Candidate> top = new PriorityQueue<>(limit, BEST_FIRST.reversed());
+        current.collect(tokens, recent == null ? Set.of() : Set.of(recent.ids()), top, limit);
+        if (recent != null) {
+            recent.collect(tokens, Set.of(), top, limit);
+        }
+        return top.stream()
+                .sorted(BEST_FIRST)
+                .map(Candidate::hit)
+                .toList();
+    }
+
+    /**
+     * Добавляет только что созданного пользователя, не дожидаясь пересборки. Пока индекс не готов, ничего не делает.
+     */
+    public void add(UUID id, UserRepresentation user) {
+        if (!isReady()) {
+            return;
+        }
+        synchronized (added) {
+            added.put(id, new Added(user, ++addedSequence));
+            addedSnapshot = buildAdded();
+        }
+    }
+
+    public void sync() {
+        long start = System.nanoTime();
+        long seenSequence;
+        synchronized (added) {
+            seenSequence = addedSequence;
+        }
+        try {
+            Builder builder = new Builder();
+            for (int first = 0; ; first += pageSize) {
+                List<UserRepresentation> page = realm.users().list(first, pageSize);
+                page.forEach(builder::add);
+                if (page.size() < pageSize) {
+                    break;
+                }
+            }
+            snapshot = builder.build();
+            // Созданные до начала пересборки уже есть в новом снимке
+            synchronized (added) {
+                added.values().removeIf(entry -> entry.sequence() <= seenSequence);
+                addedSnapshot = buildAdded();
+            }
+            syncSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.info("User search index rebuilt: {} users", snapshot.size());
+        } catch (RuntimeException ex) {
+            syncFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("User search index sync failed, keeping previous snapshot", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Snapshot buildAdded() {
+        if (added.isEmpty()) {
+            return null;
+        }
+        Builder builder = new Builder();
+        added.forEach((id, entry) -> builder.add(id, entry.user()));
+        return builder.build();
+    }
+
+    private static String[] tokens(String query) {
+        if (query == null) {
+            return new String[0];
+        }
+        return Arrays.stream(normalize(query).split("\\s+"))
+                .filter(token -> !token.isEmpty())
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Timer syncTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("users.search.index.sync")
+                .description("Full prefix search index rebuilds from Keycloak")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public record Hit(UUID id, String username, String email, String firstName, String lastName) {
+    }
+
+    private record Added(UserRepresentation user, long sequence) {
+    }
+
+    private record Candidate(Snapshot snapshot, int user, int score) {
+
+        String username() {
+            return snapshot.normalized()[user * FIELDS + USERNAME];
+        }
+
+        Hit hit() {
+            return snapshot.hit(user);
+        }
+    }
+
+    private static final class Builder {
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(UserRepresentation user) {
+            add(UUID.fromString(user.getId()), user);
+        }
+
+        void add(UUID id, UserRepresentation user) {
+            ids.add(id);
+            values.add(user.getUsername());
+            values.add(user.getEmail());
+            values.add(user.getFirstName());
+            values.add(user.getLastName());
+        }
+
+        Snapshot build() {
+            String[] display = values.toArray(String[]::new);
+            String[] normalized = new String[display.length];
+            int termCount = 0;
+            for (int i = 0; i < display.length; i++) {
+                if (display[i] != null && !display[i].isBlank()) {
+                    normalized[i] = normalize(display[i]);
+                    termCount++;
+                }
+            }
+
+            Integer[] order = new Integer[termCount];
+            for (int i = 0, term = 0; i < normalized.length; i++) {
+                if (normalized[i] != null) {
+                    order[term++] = i;
+                }
+            }
+            Arrays.sort(order, Comparator.comparing(slot -> normalized[slot]));
+
+            String[] terms = new String[termCount];
+            int[] termSlots = new int[termCount];
+            for (int i = 0; i < termCount; i++) {
+                terms[i] = normalized[order[i]];
+                termSlots[i] = order[i];
+            }
+            return new Snapshot(ids.toArray(UUID[]::new), display, normalized, terms, termSlots);
+        }
+    }
+
+    /**
+     * Неизменяемый снимок. Поля пользователя {@code i} лежат в {@code display} и {@code normalized}
+     * по индексам {@code [i * FIELDS, (i + 1) * FIELDS)}; терм {@code terms[j]} ссылается на слот {@code termSlots[j]}.
+     */
+    private record Snapshot(UUID[] ids, String[] display, String[] normalized, String[] terms, int[] termSlots) {
+
+        int size() {
+            return ids.length;
+        }
+
+        /**
+         * Кладёт в {@code top} лучших по счёту пользователей, вытесняя худшего, когда набралось {@code limit}.
+         */
+        void collect(String[] tokens, Set<UUID> excluded, PriorityQueue<Candidate> top, int limit) {
+            String lead = tokens[0];
+            Map<Integer, Integer> scores = new HashMap<>();
+            for (int i = lowerBound(lead); i < terms.length && terms[i].startsWith(lead); i++) {
+                int user = termSlots[i] / FIELDS;
+                if (!excluded.contains(ids[user]) && matchesAll(user, tokens)) {
+                    int field = termSlots[i] % FIELDS;
+                    int score = FIELD_WEIGHTS[field]
+                            + (terms[i].length() == lead.length() ? EXACT_MATCH_BONUS : 0)
+                            - Math.min(terms[i].length() - lead.length(), 9);
+                    scores.merge(user, score, Math::max);
+                }
+            }
+            scores.forEach((user, score) -> {
+                Candidate candidate = new Candidate(this, user, score);
+                if (top.size() < limit) {
+                    top.add(candidate);
+                } else if (BEST_FIRST.compare(candidate, top.peek()) < 0) {
+                    top.poll();
+                    top.add(candidate);
+                }
+            });
+        }
+
+        private boolean matchesAll(int user, String[] tokens) {
+            for (int t = 1; t < tokens.length; t++) {
+                boolean matched = false;
+                for (int field = 0; field < FIELDS && !matched; field++) {
+                    String value = normalized[user * FIELDS + field];
+                    matched = value != null && value.startsWith(tokens[t]);
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = terms.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (terms[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private Hit hit(int user) {
+            int base = user * FIELDS;
+            return new Hit(ids[user], display[base + USERNAME], display[base + EMAIL],
+                    display[base + FIRST_NAME], display[base + LAST_NAME]);
+        }
+    }
+}
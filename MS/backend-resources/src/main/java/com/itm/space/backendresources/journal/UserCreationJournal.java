@@ -0,0 +1,335 @@
+package com.itm.space.backendresources.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал заявок на асинхронное создание пользователей: append-only сегменты фиксированного размера,
+ * отображённые в память. Запись — длина, CRC32, тип, trackingId и payload; оборванная при падении запись
+ * не проходит проверку CRC и считается концом сегмента, поэтому после открытия запись всегда идёт в новый сегмент.
+ * Сегменты удаляются с начала, когда у всех принятых в них заявок записан итог.
+ * <p>
+ * В заявке лежит пароль пользователя, поэтому payload шифруется AES-GCM ключом из настроек, а каталог и сегменты
+ * создаются с доступом только для владельца. Если права на существующие шире, журнал не открывается.
+ */
+@Slf4j
+public class UserCreationJournal implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    // длина + CRC32
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    // тип + trackingId
+    private static final int BODY_PREFIX_SIZE = 1 + Long.BYTES * 2;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_SIZE = 12;
+    private static final int TAG_SIZE = 16;
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> SEGMENT_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final SecretKey key;
+    private final Cipher cipher;
+    private final SecureRandom random = new SecureRandom();
+    private final boolean posix;
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<UUID, Segment> openEntries = new HashMap<>();
+    private final List<Entry> recovered = new ArrayList<>();
+    private Segment active;
+
+    public enum Type {
+        ACCEPTED,
+        COMPLETED
+    }
+
+    public record Entry(Type type, UUID trackingId, byte[] payload) {
+    }
+
+    public UserCreationJournal(Path directory, int segmentSize, boolean fsync, SecretKey key) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.key = key;
+        try {
+            this.cipher = Cipher.getInstance(CIPHER);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Journal cipher " + CIPHER + " is unavailable", ex);
+        }
+        this.posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!posix) {
+            log.warn("File system of {} has no POSIX permissions, journal access is not restricted", directory);
+        }
+        try {
+            if (posix && Files.notExists(directory)) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            } else {
+                Files.createDirectories(directory);
+            }
+            checkOwnerOnly(directory);
+            for (Path path : segmentFiles()) {
+                checkOwnerOnly(path);
+                Segment segment = new Segment(sequence(path), path);
+                segments.put(segment.sequence, segment);
+                read(segment);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read user creation journal " + directory, ex);
+        }
+        log.info("User creation journal {}: {} segments, {} entries, {} without outcome",
+                directory, segments.size(), recovered.size(), openEntries.size());
+        deleteCompletedSegments();
+        rotate();
+    }
+
+    /**
+     * Записи, прочитанные при открытии, в порядке добавления.
+     */
+    public List<Entry> recovered() {
+        return List.copyOf(recovered);
+    }
+
+    public void append(Entry entry) {
+        append(List.of(entry));
+    }
+
+    /**
+     * Дописывает записи подряд; при {@code fsync} возвращается только после сброса их на диск.
+     */
+    public synchronized void append(List<Entry> entries) {
+        int batchStart = active.position;
+        for (Entry entry : entries) {
+            int size = HEADER_SIZE + BODY_PREFIX_SIZE + IV_SIZE + entry.payload().length + TAG_SIZE;
+            if (size > segmentSize) {
+                throw new IllegalArgumentException("Journal entry of " + size + " bytes exceeds segment size");
+            }
+            if (segmentSize - active.position < size) {
+                rotate();
+                batchStart = 0;
+            }
+            write(entry, seal(entry), size);
+            account(entry, active);
+        }
+        if (fsync) {
+            active.buffer.force(batchStart, active.position - batchStart);
+        }
+        deleteCompletedSegments();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+            active = null;
+        }
+    }
+
+    private void write(Entry entry, byte[] sealed, int size) {
+        MappedByteBuffer buffer = active.buffer;
+        int start = active.position;
+        buffer.position(start + HEADER_SIZE);
+        buffer.put((byte) entry.type().ordinal());
+        buffer.putLong(entry.trackingId().getMostSignificantBits());
+        buffer.putLong(entry.trackingId().getLeastSignificantBits());
+        buffer.put(sealed);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start + HEADER_SIZE, size - HEADER_SIZE));
+        // Длина пишется последней: до этого запись выглядит как конец сегмента
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(start, size - HEADER_SIZE);
+        active.position = start + size;
+    }
+
+    private void read(Segment segment) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < BODY_PREFIX_SIZE || length > buffer.remaining()) {
+                break;
+            }
+            ByteBuffer body = buffer.slice(start + HEADER_SIZE, length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            int type = body.get();
+            if ((int) crc.getValue() != checksum || type < 0 || type >= Type.values().length) {
+                log.warn("Torn record at {} in {}, ignoring the rest of the segment", start, segment.path);
+                break;
+            }
+            UUID trackingId = new UUID(body.getLong(), body.getLong());
+            byte[] sealed = new byte[body.remaining()];
+            body.get(sealed);
+            Type entryType = Type.values()[type];
+            Entry entry = new Entry(entryType, trackingId, open(entryType, trackingId, sealed, segment));
+            recovered.add(entry);
+            account(entry, segment);
+            buffer.position(start + HEADER_SIZE + length);
+        }
+    }
+
+    /**
+     * IV + шифротекст с тегом; тип и trackingId входят в проверку подлинности, хотя и не шифруются.
+     */
+    private byte[] seal(Entry entry) {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+        byte[] sealed = new byte[IV_SIZE + entry.payload().length + TAG_SIZE];
+        System.arraycopy(iv, 0, sealed, 0, IV_SIZE);
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE * Byte.SIZE, iv));
+            cipher.updateAAD(associatedData(entry.type(), entry.trackingId()));
+            cipher.doFinal(entry.payload(), 0, entry.payload().length, sealed, IV_SIZE);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Could not encrypt journal entry", ex);
+        }
+        return sealed;
+    }
+
+    private byte[] open(Type type, UUID trackingId, byte[] sealed, Segment segment) {
+        if (sealed.length < IV_SIZE + TAG_SIZE) {
+            throw new IllegalStateException("Truncated journal entry " + trackingId + " in " + segment.path);
+        }
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE * Byte.SIZE, sealed, 0, IV_SIZE));
+            cipher.updateAAD(associatedData(type, trackingId));
+            return cipher.doFinal(sealed, IV_SIZE, sealed.length - IV_SIZE);
+        } catch (AEADBadTagException ex) {
+            // CRC сошёлся, значит запись цела и ключ не тот
+            throw new IllegalStateException("Could not decrypt " + segment.path
+                    + ", wrong journal encryption key?", ex);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Could not decrypt journal entry", ex);
+        }
+    }
+
+    private static byte[] associatedData(Type type, UUID trackingId) {
+        return ByteBuffer.allocate(BODY_PREFIX_SIZE)
+                .put((byte) type.ordinal())
+                .putLong(trackingId.getMostSignificantBits())
+                .putLong(trackingId.getLeastSignificantBits())
+                .array();
+    }
+
+    private void checkOwnerOnly(Path path) throws IOException {
+        if (!posix) {
+            return;
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+        if (permissions.stream().anyMatch(permission -> !permission.name().startsWith("OWNER_"))) {
+            throw new IllegalStateException(path + " must be accessible only to its owner, but has permissions "
+                    + PosixFilePermissions.toString(permissions));
+        }
+    }
+
+    private void account(Entry entry, Segment segment) {
+        if (entry.type() == Type.ACCEPTED) {
+            openEntries.put(entry.trackingId(), segment);
+            segment.open++;
+        } else {
+            Segment accepted = openEntries.remove(entry.trackingId());
+            if (accepted != null) {
+                accepted.open--;
+            }
+        }
+    }
+
+    private void rotate() {
+        if (active != null) {
+            active.buffer.force();
+        }
+        long sequence = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        FileAttribute<?>[] attributes = posix
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(SEGMENT_PERMISSIONS)}
+                : new FileAttribute<?>[0];
+        try (FileChannel channel = FileChannel.open(path, Set.of(StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE), attributes)) {
+            Segment segment = new Segment(sequence, path);
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segments.put(sequence, segment);
+            active = segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create journal segment " + path, ex);
+        }
+    }
+
+    /**
+     * Удаляются только сегменты с начала журнала: итог заявки всегда записан не раньше самой заявки,
+     * так что после удаления префикса ни одна заявка без итога не окажется без своей записи об итоге.
+     */
+    private void deleteCompletedSegments() {
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.open > 0) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(oldest.path);
+                segments.pollFirstEntry();
+            } catch (IOException ex) {
+                log.warn("Could not delete journal segment {}: {}", oldest.path, ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequence(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private MappedByteBuffer buffer;
+        private int position;
+        private int open;
+
+        private Segment(long sequence, Path path) {
+            this.sequence = sequence;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.itm.space.backendresources.keycloak;
+
+import com.itm.space.backendresources.exception.KeycloakUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Единая точка входа для вызовов admin API: сначала bulkhead ограничивает число одновременных вызовов,
+ * затем circuit breaker отсекает вызовы, пока Keycloak деградирует. Отказ без вызова — {@link KeycloakUnavailableException}.
+ * Каждый вызов пишется в таймер {@code keycloak.admin.requests} с тегами operation, outcome и status.
+ */
+@Slf4j
+public class KeycloakGuard {
+    private static final String NO_STATUS = "none";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration retryAfter;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public KeycloakGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Duration retryAfter,
+                         MeterRegistry meterRegistry) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.retryAfter = retryAfter;
+        this.meterRegistry = meterRegistry;
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Keycloak circuit breaker {}", event.getStateTransition()));
+    }
+
+    public <T> T call(KeycloakOperation operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+            record(operation, result instanceof Response response ? response.getStatus() : 200, start);
+            return result;
+        } catch (CallNotPermittedException ex) {
+            record(operation, "rejected", NO_STATUS, start);
+            throw new KeycloakUnavailableException("Keycloak is unavailable, circuit breaker is open", retryAfter);
+        } catch (BulkheadFullException ex) {
+            record(operation, "rejected", NO_STATUS, start);
+            throw new KeycloakUnavailableException("Too many concurrent Keycloak calls", Duration.ZERO);
+        } catch (WebApplicationException ex) {
+            record(operation, ex.getResponse().getStatus(), start);
+            throw ex;
+        } catch (RuntimeException ex) {
+            record(operation, "error", NO_STATUS, start);
+            throw ex;
+        }
+    }
+
+    /**
+     * Неблокирующий вариант для вызовов через WebClient. Ошибки те же, что у блокирующего:
+     * отказ без вызова — {@link KeycloakUnavailableException}, ответ Keycloak с ошибкой — {@link WebClientResponseException}.
+     * Лимит одновременных вызовов общий с блокирующим вариантом.
+     */
+    public <T> Mono<T> call(KeycloakOperation operation, Mono<T> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return withBulkhead(call.transformDeferred(CircuitBreakerOperator.of(circuitBreaker)))
+                    .doOnSuccess(result -> record(operation, 200, start))
+                    .doOnCancel(() -> record(operation, "cancelled", NO_STATUS, start))
+                    .onErrorMap(ex -> reactiveFailure(operation, ex, start));
+        });
+    }
+
+    /**
+     * Разрешение берётся из того же bulkhead, что и у блокирующих вызовов. Ожидание max-wait идёт
+     * на boundedElastic, а не в потоке event loop; разрешение возвращается при любом завершении, в том числе при отмене.
+     */
+    private <T> Mono<T> withBulkhead(Mono<T> call) {
+        Mono<Boolean> permission = Mono.fromCallable(bulkhead::tryAcquirePermission)
+                .subscribeOn(Schedulers.boundedElastic());
+        return Mono.usingWhen(permission,
+                permitted -> permitted ? call : Mono.error(BulkheadFullException.createBulkheadFullException(bulkhead)),
+                this::release, (permitted, ex) -> release(permitted), this::release);
+    }
+
+    private Mono<Void> release(boolean permitted) {
+        return permitted ? Mono.fromRunnable(bulkhead::onComplete) : Mono.empty();
+    }
+
+    private Throwable reactiveFailure(KeycloakOperation operation, Throwable ex, long start) {
+        if (ex instanceof CallNotPermittedException) {
+            record(operation, "rejected", NO_STATUS, start);
+            return new KeycloakUnavailableException("Keycloak is unavailable, circuit breaker is open", retryAfter);
+        }
+        if (ex instanceof BulkheadFullException) {
+            record(operation, "rejected", NO_STATUS, start);
+            return new KeycloakUnavailableException("Too many concurrent Keycloak calls", Duration.ZERO);
+        }
+        if (ex instanceof WebClientResponseException responseException) {
+            record(operation, responseException.getStatusCode().value(), start);
+            return ex;
+        }
+        record(operation, "error", NO_STATUS, start);
+        return ex;
+    }
+
+    private void record(KeycloakOperation operation, int status, long start) {
+        String outcome = status >= 500 ? "server_error" : status >= 400 ? "client_error" : "success";
+        record(operation, outcome, String.valueOf(status), start);
+    }
+
+    private void record(KeycloakOperation operation, String outcome, String status, long start) {
+        timers.computeIfAbsent(new TimerKey(operation, outcome, status), this::timer)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(TimerKey key) {
+        return Timer.builder("keycloak.admin.requests")
+                .description("Keycloak admin API calls")
+                .tag("operation", key.operation().getTag())
+                .tag("outcome", key.outcome())
+                .tag("status", key.status())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Операции — enum, статусы — коды HTTP, поэтому число комбинаций тегов ограничено.
+     */
+    private record TimerKey(KeycloakOperation operation, String outcome, String status) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.itm.space.backendresources.keycloak;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Вызовы admin API, которые меряются по отдельности. Значение {@code tag} уходит в тег {@code operation} метрик.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum KeycloakOperation {
+    CREATE_USER("create_user"),
+    DELETE_USER("delete_user"),
+    ASSIGN_ROLES("assign_roles"),
+    JOIN_GROUP("join_group"),
+    GET_REPRESENTATION("get_representation"),
+    GET_ROLE_MAPPINGS("get_role_mappings"),
+    GET_GROUPS("get_groups"),
+    LIST_USERS("list_users"),
+    SEARCH_USERS("search_users");
+
+    private final String tag;
+}
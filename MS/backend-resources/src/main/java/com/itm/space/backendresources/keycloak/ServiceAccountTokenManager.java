@@ -0,0 +1,215 @@
+package com.itm.space.backendresources.keycloak;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.representations.AccessTokenResponse;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.keycloak.OAuth2Constants.CLIENT_CREDENTIALS;
+import static org.keycloak.OAuth2Constants.CLIENT_ID;
+import static org.keycloak.OAuth2Constants.CLIENT_SECRET;
+import static org.keycloak.OAuth2Constants.GRANT_TYPE;
+
+/**
+ * Держит access token сервисного аккаунта и обновляет его в фоне заранее, до истечения.
+ * Одновременно выполняется не больше одного обновления; пока оно идёт, запросы уходят с текущим токеном.
+ * Блокируются только запросы, для которых действующего токена нет совсем.
+ */
+@Slf4j
+public class ServiceAccountTokenManager implements ClientRequestFilter, ClientResponseFilter, AutoCloseable {
+    private final WebTarget tokenEndpoint;
+    private final String clientId;
+    private final String clientSecret;
+    private final Duration refreshBeforeExpiry;
+    private final Duration waitTimeout;
+    private final ScheduledExecutorService scheduler;
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    private final AtomicReference<CompletableFuture<AccessToken>> refreshInFlight = new AtomicReference<>();
+    private volatile AccessToken current;
+
+    public ServiceAccountTokenManager(WebTarget tokenEndpoint, String clientId, String clientSecret,
+                                      Duration refreshBeforeExpiry, Duration checkInterval, Duration waitTimeout,
+                                      MeterRegistry meterRegistry) {
+        this.tokenEndpoint = tokenEndpoint;
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.refreshBeforeExpiry = refreshBeforeExpiry;
+        this.waitTimeout = waitTimeout;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("keycloak-token-refresh-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        this.refreshSuccess = refreshTimer("success", meterRegistry);
+        this.refreshFailure = refreshTimer("failure", meterRegistry);
+        Gauge.builder("keycloak.token.remaining", this, ServiceAccountTokenManager::secondsUntilExpiry)
+                .description("Seconds until the current service account token expires")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        scheduler.scheduleWithFixedDelay(this::refreshIfDue,
+                checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.getHeaders().putSingle(HttpHeaders.AUTHORIZATION, "Bearer " + getAccessToken());
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        if (responseContext.getStatus() == Response.Status.UNAUTHORIZED.getStatusCode()) {
+            rejected(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION));
+        }
+    }
+
+    /**
+     * Keycloak ответил 401 на запрос с этим заголовком Authorization. Если это текущий токен, он сбрасывается,
+     * и следующий запрос дождётся нового.
+     */
+    public void rejected(String sentAuthorization) {
+        AccessToken token = current;
+        if (token != null && sentAuthorization != null && sentAuthorization.endsWith(token.value())) {
+            log.warn("Keycloak rejected the service account token, dropping it");
+            current = null;
+        }
+    }
+
+    public String getAccessToken() {
+        AccessToken token = current;
+        Instant now = Instant.now();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.refreshAt())) {
+                refresh();
+            }
+            return token.value();
+        }
+        return awaitRefresh(refresh()).value();
+    }
+
+    /**
+     * Неблокирующий вариант {@link #getAccessToken()} для WebClient: без действующего токена
+     * возвращает обновление, которое уже идёт или только что запущено.
+     */
+    public CompletableFuture<String> getAccessTokenAsync() {
+        AccessToken token = current;
+        Instant now = Instant.now();
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.refreshAt())) {
+                refresh();
+            }
+            return CompletableFuture.completedFuture(token.value());
+        }
+        return refresh().thenApply(AccessToken::value).orTimeout(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshIfDue() {
+        AccessToken token = current;
+        if (token != null && !Instant.now().isBefore(token.refreshAt())) {
+            refresh();
+        }
+    }
+
+    private CompletableFuture<AccessToken> refresh() {
+        while (true) {
+            CompletableFuture<AccessToken> running = refreshInFlight.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+            if (refreshInFlight.compareAndSet(null, refresh)) {
+                try {
+                    scheduler.execute(() -> fetchToken(refresh));
+                } catch (RejectedExecutionException ex) {
+                    refreshInFlight.compareAndSet(refresh, null);
+                    refresh.completeExceptionally(ex);
+                }
+                return refresh;
+            }
+        }
+    }
+
+    private void fetchToken(CompletableFuture<AccessToken> refresh) {
+        long start = System.nanoTime();
+        Instant requestedAt = Instant.now();
+        try {
+            Form form = new Form()
+                    .param(GRANT_TYPE, CLIENT_CREDENTIALS)
+                    .param(CLIENT_ID, clientId)
+                    .param(CLIENT_SECRET, clientSecret);
+            AccessTokenResponse response = tokenEndpoint.request(MediaType.APPLICATION_JSON_TYPE)
+                    .post(Entity.form(form), AccessTokenResponse.class);
+            Duration lifetime = Duration.ofSeconds(response.getExpiresIn());
+            Duration refreshIn = lifetime.minus(refreshBeforeExpiry);
+            if (refreshIn.compareTo(lifetime.dividedBy(2)) < 0) {
+                refreshIn = lifetime.dividedBy(2);
+            }
+            AccessToken token = new AccessToken(response.getToken(),
+                    requestedAt.plus(lifetime), requestedAt.plus(refreshIn));
+            current = token;
+            refreshSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            refreshInFlight.compareAndSet(refresh, null);
+            refresh.complete(token);
+        } catch (RuntimeException ex) {
+            refreshFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.error("Failed to refresh Keycloak service account token", ex);
+            refreshInFlight.compareAndSet(refresh, null);
+            refresh.completeExceptionally(ex);
+        }
+    }
+
+    private AccessToken awaitRefresh(CompletableFuture<AccessToken> refresh) {
+        try {
+            return refresh.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            throw new ProcessingException("Unable to obtain Keycloak service account token", ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ProcessingException("Timed out waiting for Keycloak service account token");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for Keycloak service account token");
+        }
+    }
+
+    private double secondsUntilExpiry() {
+        AccessToken token = current;
+        return token == null ? 0 : Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toSeconds());
+    }
+
+    private static Timer refreshTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("keycloak.token.refresh")
+                .description("Service account token requests against the Keycloak token endpoint")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record AccessToken(String value, Instant expiresAt, Instant refreshAt) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.itm.space.backendresources.mapper;
 
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.api.response.UserSummaryResponse;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
@@ -11,16 +13,49 @@ import org.mapstruct.Named;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Mapper(componentModel = MappingConstants.ComponentModel.SPRING, imports = Collections.class)
 public interface UserMapper {
 
     @Mapping(target = "roles", source = "roleList", qualifiedByName = "mapRoleRepresentationToString")
     @Mapping(target = "groups", source = "groupList", qualifiedByName = "mapGroupRepresentationToString")
+    @Mapping(target = "stale", ignore = true)
     UserResponse userRepresentationToUserResponse(UserRepresentation userRepresentation,
                                                   List<RoleRepresentation> roleList,
                                                   List<GroupRepresentation> groupList);
 
+    @Mapping(target = "roles", source = "roles")
+    @Mapping(target = "groups", source = "groups")
+    @Mapping(target = "stale", ignore = true)
+    UserResponse toUserResponse(UserRepresentation userRepresentation, List<String> roles, List<String> groups);
+
+    UserSummaryResponse toUserSummaryResponse(UserRepresentation userRepresentation);
+
+    /**
+     * Ответ только с запрошенными полями, остальные {@code null}. Что не запрошено, может быть не загружено.
+     */
+    default UserResponse toUserResponse(UserRepresentation userRepresentation, List<String> roles,
+                                        List<String> groups, Set<UserField> fields) {
+        return new UserResponse(
+                fields.contains(UserField.FIRST_NAME) ? userRepresentation.getFirstName() : null,
+                fields.contains(UserField.LAST_NAME) ? userRepresentation.getLastName() : null,
+                fields.contains(UserField.EMAIL) ? userRepresentation.getEmail() : null,
+                fields.contains(UserField.ROLES) ? roles : null,
+                fields.contains(UserField.GROUPS) ? groups : null);
+    }
+
+    default UserResponse selectFields(UserResponse userResponse, Set<UserField> fields) {
+        UserResponse selected = new UserResponse(
+                fields.contains(UserField.FIRST_NAME) ? userResponse.getFirstName() : null,
+                fields.contains(UserField.LAST_NAME) ? userResponse.getLastName() : null,
+                fields.contains(UserField.EMAIL) ? userResponse.getEmail() : null,
+                fields.contains(UserField.ROLES) ? userResponse.getRoles() : null,
+                fields.contains(UserField.GROUPS) ? userResponse.getGroups() : null);
+        selected.setStale(userResponse.isStale());
+        return selected;
+    }
+
     @Named("mapRoleRepresentationToString")
     default List<String> mapRoleRepresentationToString(List<RoleRepresentation> roleList) {
         return roleList.stream().map(RoleRepresentation::getName).toList();
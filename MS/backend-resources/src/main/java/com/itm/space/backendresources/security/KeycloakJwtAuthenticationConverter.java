@@ -0,0 +1,61 @@
+package com.itm.space.backendresources.security;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Переводит {@code realm_access.roles} токена Keycloak в authorities {@code ROLE_*}.
+ * Наборов ролей у пользователей немного, поэтому набор authorities для каждой комбинации строится один раз
+ * и дальше раздаётся всем запросам как общий неизменяемый объект.
+ */
+public class KeycloakJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+    private final ConcurrentMap<List<String>, List<GrantedAuthority>> authoritiesByRoles = new ConcurrentHashMap<>();
+    private final int maxRoleCombinations;
+
+    public KeycloakJwtAuthenticationConverter(int maxRoleCombinations) {
+        this.maxRoleCombinations = maxRoleCombinations;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        return new JwtAuthenticationToken(jwt, authorities(roles(jwt)), jwt.getSubject());
+    }
+
+    private List<GrantedAuthority> authorities(List<String> roles) {
+        List<GrantedAuthority> authorities = authoritiesByRoles.get(roles);
+        if (authorities != null) {
+            return authorities;
+        }
+        authorities = toAuthorities(roles);
+        // Защита от токенов с произвольными ролями: сверх лимита просто не кешируем
+        if (authoritiesByRoles.size() < maxRoleCombinations) {
+            List<GrantedAuthority> existing = authoritiesByRoles.putIfAbsent(List.copyOf(roles), authorities);
+            return existing != null ? existing : authorities;
+        }
+        return authorities;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> roles(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+        if (realmAccess == null || !(realmAccess.get("roles") instanceof List<?> roles)) {
+            return List.of();
+        }
+        return (List<String>) roles;
+    }
+
+    private static List<GrantedAuthority> toAuthorities(List<String> roles) {
+        return roles.stream()
+                .<GrantedAuthority>map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
+    }
+}
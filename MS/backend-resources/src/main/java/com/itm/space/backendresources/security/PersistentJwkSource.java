@@ -0,0 +1,144 @@
+package com.itm.space.backendresources.security;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Набор ключей Keycloak для проверки подписи, который переживает рестарт: последний полученный JWKS
+ * сохраняется в файл и читается оттуда при старте, так что запуск сервиса не ждёт Keycloak.
+ * Ключи обновляются в фоне; на незнакомый {@code kid} набор перезапрашивается, но не чаще {@code minRefetchInterval}.
+ */
+@Slf4j
+public class PersistentJwkSource implements JWKSource<SecurityContext>, AutoCloseable {
+    private final URI jwkSetUri;
+    private final Path cacheFile;
+    private final Duration minRefetchInterval;
+    private final Clock clock;
+    private final RestTemplate restTemplate;
+    private final ScheduledExecutorService scheduler;
+    private final Counter refreshSuccess;
+    private final Counter refreshFailure;
+    private volatile JWKSet jwkSet = new JWKSet();
+    private volatile Instant lastFetchAttempt = Instant.MIN;
+
+    public PersistentJwkSource(URI jwkSetUri, Path cacheFile, Duration refreshInterval, Duration minRefetchInterval,
+                               Duration timeout, Clock clock, MeterRegistry meterRegistry) {
+        this.jwkSetUri = jwkSetUri;
+        this.cacheFile = cacheFile;
+        this.minRefetchInterval = minRefetchInterval;
+        this.clock = clock;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout((int) timeout.toMillis());
+        requestFactory.setReadTimeout((int) timeout.toMillis());
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.refreshSuccess = refreshCounter("success", meterRegistry);
+        this.refreshFailure = refreshCounter("failure", meterRegistry);
+        loadFromFile();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("jwks-refresh-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context) throws KeySourceException {
+        List<JWK> keys = jwkSelector.select(jwkSet);
+        if (!keys.isEmpty()) {
+            return keys;
+        }
+        // Незнакомый kid — скорее всего, Keycloak сменил ключи
+        refetchForUnknownKey();
+        return jwkSelector.select(jwkSet);
+    }
+
+    /**
+     * Перезапрашивает JWKS. При ошибке остаётся прежний набор ключей.
+     */
+    public synchronized void refresh() {
+        lastFetchAttempt = clock.instant();
+        try {
+            String body = restTemplate.getForObject(jwkSetUri, String.class);
+            if (body == null) {
+                throw new RestClientException("Empty JWKS response");
+            }
+            JWKSet fetched = JWKSet.parse(body);
+            jwkSet = fetched;
+            refreshSuccess.increment();
+            persist(fetched);
+        } catch (RestClientException | ParseException | IllegalArgumentException ex) {
+            refreshFailure.increment();
+            log.warn("JWKS refresh from {} failed, keeping {} known keys: {}",
+                    jwkSetUri, jwkSet.getKeys().size(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized void refetchForUnknownKey() {
+        if (lastFetchAttempt.plus(minRefetchInterval).isBefore(clock.instant())) {
+            refresh();
+        }
+    }
+
+    private void loadFromFile() {
+        if (!Files.isReadable(cacheFile)) {
+            log.info("No cached JWKS at {}, waiting for the first fetch", cacheFile);
+            return;
+        }
+        try {
+            jwkSet = JWKSet.parse(Files.readString(cacheFile, StandardCharsets.UTF_8));
+            log.info("Loaded {} keys from cached JWKS {}", jwkSet.getKeys().size(), cacheFile);
+        } catch (IOException | ParseException ex) {
+            log.warn("Cached JWKS {} is unreadable, ignoring it: {}", cacheFile, ex.getMessage());
+        }
+    }
+
+    private void persist(JWKSet fetched) {
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+            // В файл пишутся только публичные ключи
+            Files.writeString(temp, fetched.toString(true), StandardCharsets.UTF_8);
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            log.warn("Could not persist JWKS to {}: {}", cacheFile, ex.getMessage());
+        }
+    }
+
+    private static Counter refreshCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("keycloak.jwks.refresh")
+                .description("JWKS fetches from Keycloak")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,14 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse;
+
+import java.util.UUID;
+
+public interface AsyncUserCreationService {
+
+    UserCreationStatusResponse submit(UserRequest userRequest);
+
+    UserCreationStatusResponse getStatus(UUID trackingId);
+
+}
@@ -0,0 +1,356 @@
+package com.itm.space.backendresources.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse.State;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.exception.KeycloakUnavailableException;
+import com.itm.space.backendresources.exception.OrphanedUserException;
+import com.itm.space.backendresources.journal.UserCreationJournal;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.SEARCH_USERS;
+
+/**
+ * Создание пользователя с ответом до похода в Keycloak: заявка пишется в {@link UserCreationJournal}
+ * и разбирается фоновыми обработчиками. Заявки одного username попадают в одну очередь и создаются строго по порядку;
+ * итоги пачки дописываются в журнал одной записью на диск. Заявки без итога после рестарта выполняются заново.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty("users.async.enabled")
+public class AsyncUserCreationServiceImpl implements AsyncUserCreationService, AutoCloseable {
+    // Часы Keycloak и сервиса могут расходиться
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+    private final UserCreationJournal userCreationJournal;
+    private final UserService userService;
+    private final UsersResource keycloakUsers;
+    private final KeycloakGuard keycloakGuard;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final List<BlockingQueue<Task>> queues;
+    private final ExecutorService workers;
+    private final Map<UUID, Task> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, UserCreationStatusResponse> finished;
+    private final Map<State, Counter> outcomes = new EnumMap<>(State.class);
+
+    /**
+     * {@code recovered} — заявка прочитана из журнала после рестарта и, возможно, уже выполнена.
+     */
+    private record Task(UUID trackingId, UserRequest userRequest, Instant acceptedAt, boolean recovered) {
+    }
+
+    /**
+     * Payload записи о принятой заявке.
+     */
+    record AcceptedRequest(UserRequest userRequest, Instant acceptedAt) {
+    }
+
+    public AsyncUserCreationServiceImpl(UserCreationJournal userCreationJournal,
+                                        UserService userService,
+                                        UsersResource keycloakUsers,
+                                        KeycloakGuard keycloakGuard,
+                                        ObjectMapper objectMapper,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${users.async.workers}") int workerCount,
+                                        @Value("${users.async.batch-size}") int batchSize,
+                                        @Value("${users.async.max-pending}") int maxPending,
+                                        @Value("${users.async.max-attempts}") int maxAttempts,
+                                        @Value("${users.async.retry-backoff}") Duration retryBackoff,
+                                        @Value("${users.async.max-retry-backoff}") Duration maxRetryBackoff,
+                                        @Value("${users.async.status.ttl}") Duration statusTtl,
+                                        @Value("${users.async.status.max-size}") long statusMaxSize) {
+        this.userCreationJournal = userCreationJournal;
+        this.userService = userService;
+        this.keycloakUsers = keycloakUsers;
+        this.keycloakGuard = keycloakGuard;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.finished = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(statusMaxSize)
+                .build();
+        for (State state : List.of(State.CREATED, State.FAILED)) {
+            outcomes.put(state, Counter.builder("users.async.outcomes")
+                    .description("Asynchronous user creations by final state")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("users.async.pending", pending, Map::size)
+                .description("Accepted user creations not yet applied to Keycloak")
+                .register(meterRegistry);
+
+        queues = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            queues.add(new LinkedBlockingQueue<>());
+        }
+        recover();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-create-");
+        threadFactory.setDaemon(true);
+        workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+        queues.forEach(queue -> workers.execute(() -> drain(queue)));
+    }
+
+    @Override
+    public UserCreationStatusResponse submit(UserRequest userRequest) {
+        if (pending.size() >= maxPending) {
+            throw new BackendResourcesException("Too many pending user creations", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        Task task = new Task(UUID.randomUUID(), userRequest, Instant.now(), false);
+        try {
+            userCreationJournal.append(new UserCreationJournal.Entry(UserCreationJournal.Type.ACCEPTED,
+                    task.trackingId(), write(new AcceptedRequest(userRequest, task.acceptedAt()))));
+        } catch (UncheckedIOException ex) {
+            log.error("Could not journal user creation for {}", userRequest.getUsername(), ex);
+            throw new BackendResourcesException("User creation journal is unavailable", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        enqueue(task);
+        return pendingStatus(task);
+    }
+
+    @Override
+    public UserCreationStatusResponse getStatus(UUID trackingId) {
+        Task task = pending.get(trackingId);
+        if (task != null) {
+            return pendingStatus(task);
+        }
+        UserCreationStatusResponse status = finished.getIfPresent(trackingId);
+        if (status == null) {
+            throw new BackendResourcesException("Unknown tracking id " + trackingId, HttpStatus.NOT_FOUND);
+        }
+        return status;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        workers.shutdownNow();
+        // Итоги уже выполненных заявок дописываются в журнал до его закрытия
+        workers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void recover() {
+        Map<UUID, Task> recovered = new LinkedHashMap<>();
+        for (UserCreationJournal.Entry entry : userCreationJournal.recovered()) {
+            if (entry.type() == UserCreationJournal.Type.ACCEPTED) {
+                AcceptedRequest accepted = read(entry.payload(), AcceptedRequest.class);
+                recovered.put(entry.trackingId(),
+                        new Task(entry.trackingId(), accepted.userRequest(), accepted.acceptedAt(), true));
+            } else {
+                recovered.remove(entry.trackingId());
+                finished.put(entry.trackingId(), read(entry.payload(), UserCreationStatusResponse.class));
+            }
+        }
+        recovered.values().forEach(this::enqueue);
+        if (!recovered.isEmpty()) {
+            log.info("Resuming {} user creations from journal", recovered.size());
+        }
+    }
+
+    private void enqueue(Task task) {
+        pending.put(task.trackingId(), task);
+        String username = task.userRequest().getUsername().toLowerCase(Locale.ROOT);
+        queues.get(Math.floorMod(username.hashCode(), queues.size())).add(task);
+    }
+
+    private void drain(BlockingQueue<Task> queue) {
+        List<Task> batch = new ArrayList<>(batchSize);
+        List<UserCreationJournal.Entry> completed = new ArrayList<>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                try {
+                    for (Task task : batch) {
+                        try {
+                            complete(task, completed);
+                        } catch (RuntimeException ex) {
+                            // Обработчик не должен умереть: заявки его очереди остались бы PENDING навсегда
+                            log.error("User creation {} failed unexpectedly", task.trackingId(), ex);
+                            pending.remove(task.trackingId());
+                            finished.put(task.trackingId(), status(task, State.FAILED, null, ex.getMessage()));
+                        }
+                    }
+                } finally {
+                    journalOutcomes(completed);
+                    batch.clear();
+                    completed.clear();
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void complete(Task task, List<UserCreationJournal.Entry> completed) throws InterruptedException {
+        UserCreationStatusResponse status = create(task);
+        try {
+            completed.add(new UserCreationJournal.Entry(UserCreationJournal.Type.COMPLETED, task.trackingId(),
+                    write(status)));
+        } catch (RuntimeException ex) {
+            // Как и при сбое записи пачки: без итога в журнале заявка повторится после рестарта
+            log.error("Could not journal the outcome of user creation {}", task.trackingId(), ex);
+        }
+        finished.put(task.trackingId(), status);
+        pending.remove(task.trackingId());
+        outcomes.get(status.getState()).increment();
+    }
+
+    private void journalOutcomes(List<UserCreationJournal.Entry> completed) {
+        if (completed.isEmpty()) {
+            return;
+        }
+        try {
+            userCreationJournal.append(completed);
+        } catch (RuntimeException ex) {
+            // Без записи об итоге заявки повторятся после рестарта; повтор распознаёт уже созданного пользователя
+            log.error("Could not journal {} user creation outcomes", completed.size(), ex);
+        }
+    }
+
+    private UserCreationStatusResponse create(Task task) throws InterruptedException {
+        UserRequest userRequest = task.userRequest();
+        // Пользователь мог быть создан прошлой попыткой, ответ на которую потерялся
+        boolean mayExist = task.recovered();
+        for (int attempt = 1; ; attempt++) {
+            String error;
+            Duration retryAfter = Duration.ZERO;
+            try {
+                return status(task, State.CREATED, userService.createUser(userRequest), null);
+            } catch (OrphanedUserException ex) {
+                // Повтор упрётся в 409 по недонастроенному пользователю — нужен человек
+                return status(task, State.FAILED, ex.getUserId(), ex.getMessage());
+            } catch (KeycloakUnavailableException ex) {
+                // Отказ bulkhead или circuit breaker: запрос до Keycloak не дошёл
+                retryAfter = ex.getRetryAfter();
+                error = ex.getMessage();
+            } catch (BackendResourcesException ex) {
+                HttpStatus httpStatus = ex.getHttpStatus();
+                if (httpStatus == HttpStatus.CONFLICT && mayExist) {
+                    UserCreationStatusResponse existing = resolveConflict(task);
+                    if (existing != null) {
+                        return existing;
+                    }
+                } else if (httpStatus != null && httpStatus.is4xxClientError()) {
+                    return status(task, State.FAILED, null, ex.getMessage());
+                }
+                // За 502 и 504 стоит прокси, Keycloak мог успеть создать пользователя
+                mayExist |= httpStatus == HttpStatus.BAD_GATEWAY || httpStatus == HttpStatus.GATEWAY_TIMEOUT;
+                error = ex.getMessage();
+            } catch (RuntimeException ex) {
+                // Таймаут или обрыв соединения: ответ потерян, запрос мог быть выполнен
+                mayExist = true;
+                error = ex.getMessage();
+            }
+            if (attempt >= maxAttempts) {
+                log.error("Giving up on user {} after {} attempts: {}", userRequest.getUsername(), attempt, error);
+                return status(task, State.FAILED, null, "Gave up after " + attempt + " attempts: " + error);
+            }
+            log.warn("Creating user {} failed (attempt {}), retrying: {}", userRequest.getUsername(), attempt, error);
+            Thread.sleep(backoff(attempt, retryAfter).toMillis());
+        }
+    }
+
+    /**
+     * Пользователь считается созданным этой заявкой, только если совпадают его данные и он создан
+     * не раньше, чем заявка принята; иначе это чужой пользователь с тем же username.
+     *
+     * @return итог по уже существующему пользователю или {@code null}, если Keycloak сейчас не ответил
+     */
+    private UserCreationStatusResponse resolveConflict(Task task) {
+        String username = task.userRequest().getUsername();
+        try {
+            List<UserRepresentation> users = keycloakGuard.call(SEARCH_USERS, () -> keycloakUsers.search(username, true));
+            return users.stream()
+                    .filter(user -> username.equalsIgnoreCase(user.getUsername()))
+                    .filter(user -> createdBy(user, task))
+                    .findFirst()
+                    .map(user -> status(task, State.CREATED, UUID.fromString(user.getId()), null))
+                    .orElseGet(() -> status(task, State.FAILED, null, "User " + username + " already exists"));
+        } catch (RuntimeException ex) {
+            log.warn("Could not look up user {} after conflict: {}", username, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean createdBy(UserRepresentation user, Task task) {
+        UserRequest userRequest = task.userRequest();
+        return userRequest.getEmail().equalsIgnoreCase(user.getEmail())
+                && Objects.equals(userRequest.getFirstName(), user.getFirstName())
+                && Objects.equals(userRequest.getLastName(), user.getLastName())
+                && user.getCreatedTimestamp() != null
+                && !Instant.ofEpochMilli(user.getCreatedTimestamp()).isBefore(task.acceptedAt().minus(CLOCK_SKEW));
+    }
+
+    private Duration backoff(int attempt, Duration retryAfter) {
+        Duration exponential = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 20));
+        Duration backoff = exponential.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : exponential;
+        return retryAfter.compareTo(backoff) > 0 ? retryAfter : backoff;
+    }
+
+    private static UserCreationStatusResponse pendingStatus(Task task) {
+        return status(task, State.PENDING, null, null);
+    }
+
+    private static UserCreationStatusResponse status(Task task, State state, UUID userId, String error) {
+        return new UserCreationStatusResponse(task.trackingId(), task.userRequest().getUsername(), state, userId, error);
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize journal entry", ex);
+        }
+    }
+
+    private <T> T read(byte[] payload, Class<T> type) {
+        try {
+            return objectMapper.readValue(payload, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Corrupted journal entry", ex);
+        }
+    }
+}
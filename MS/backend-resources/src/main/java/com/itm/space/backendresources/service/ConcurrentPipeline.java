@@ -0,0 +1,56 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Прогоняет элементы через {@code task} на заданном пуле, держа в работе не более {@code maxInFlight} задач.
+ * Ошибка отдельного элемента не прерывает обработку остальных — результат для него строит {@code onError}.
+ */
+public final class ConcurrentPipeline {
+
+    private ConcurrentPipeline() {
+    }
+
+    public static <T, R> List<R> process(List<T> items, int maxInFlight, Executor executor,
+                                         Function<T, R> task, BiFunction<T, Throwable, R> onError) {
+        Semaphore permits = new Semaphore(maxInFlight);
+        List<CompletableFuture<R>> results = new ArrayList<>(items.size());
+        for (T item : items) {
+            acquire(permits);
+            CompletableFuture<R> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> task.apply(item), executor);
+                result.whenComplete((value, ex) -> permits.release());
+            } catch (RejectedExecutionException ex) {
+                permits.release();
+                result = CompletableFuture.failedFuture(ex);
+            }
+            results.add(result.handle((value, ex) -> ex == null ? value : onError.apply(item, unwrap(ex))));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BackendResourcesException("Pipeline interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+}
@@ -0,0 +1,104 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+
+/**
+ * Итератор по постраничному источнику: пока потребитель разбирает текущую страницу,
+ * следующая уже загружается на {@code executor}. В памяти одновременно не больше двух страниц.
+ * {@link #close()} прерывает уже идущую загрузку страницы, а не только ещё не начатую.
+ */
+public class PrefetchingPageIterator<T> implements Iterator<T>, AutoCloseable {
+    private final BiFunction<Integer, Integer, List<T>> pageLoader;
+    private final int pageSize;
+    private final Executor executor;
+
+    private Iterator<T> current = Collections.emptyIterator();
+    private Future<List<T>> next;
+    private int nextFirst;
+    private boolean exhausted;
+
+    public PrefetchingPageIterator(BiFunction<Integer, Integer, List<T>> pageLoader, int pageSize, Executor executor) {
+        this.pageLoader = pageLoader;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.next = fetch(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted) {
+                return false;
+            }
+            List<T> page = await(next);
+            next = null;
+            if (page.size() < pageSize) {
+                exhausted = true;
+            } else {
+                next = fetch(nextFirst);
+            }
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        exhausted = true;
+        current = Collections.emptyIterator();
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+
+    private Future<List<T>> fetch(int first) {
+        nextFirst = first + pageSize;
+        // FutureTask, а не CompletableFuture: cancel(true) у последнего не прерывает поток загрузки
+        FutureTask<List<T>> page = new FutureTask<>(() -> pageLoader.apply(first, pageSize));
+        try {
+            executor.execute(page);
+            return page;
+        } catch (RejectedExecutionException ex) {
+            throw new BackendResourcesException("Keycloak page fetch rejected", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private List<T> await(Future<List<T>> page) {
+        try {
+            List<T> result = page.get();
+            return result != null ? result : List.of();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BackendResourcesException(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BackendResourcesException("Keycloak page fetch interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (CancellationException ex) {
+            throw new BackendResourcesException("Keycloak page fetch cancelled", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface ReactiveUserService {
+
+    Mono<UUID> createUser(UserRequest userRequest);
+
+    Mono<UserResponse> getUserById(UUID id);
+
+}
@@ -0,0 +1,207 @@
+package com.itm.space.backendresources.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import com.itm.space.backendresources.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.CREATE_USER;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_GROUPS;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_REPRESENTATION;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_ROLE_MAPPINGS;
+
+/**
+ * Те же создание и чтение пользователя, что и в {@link UserServiceImpl}, но без блокирующих вызовов:
+ * admin API вызывается через {@link WebClient}, поток запроса не ждёт Keycloak.
+ * Кэши, индекс членства и защита {@link KeycloakGuard} общие с блокирующей реализацией.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty("users.reactive.enabled")
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    private static final ParameterizedTypeReference<List<RoleRepresentation>> ROLES =
+            new ParameterizedTypeReference<>() {
+            };
+    private static final ParameterizedTypeReference<List<GroupRepresentation>> GROUPS =
+            new ParameterizedTypeReference<>() {
+            };
+
+    @Qualifier("keycloakAdminWebClient")
+    private final WebClient keycloakAdminWebClient;
+    private final UserMapper userMapper;
+    @Qualifier("userResponseCache")
+    private final Cache<UUID, UserResponse> userResponseCache;
+    @Qualifier("staleUserResponseCache")
+    private final Cache<UUID, UserResponse> staleUserResponseCache;
+    private final MembershipIndex membershipIndex;
+    private final KeycloakGuard keycloakGuard;
+    private final UserSearchIndex userSearchIndex;
+    private final Map<UUID, Mono<UserResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${keycloak.lookup.timeout}")
+    private Duration lookupTimeout;
+    @Value("${users.stale.enabled}")
+    private boolean serveStale;
+
+    @Override
+    public Mono<UUID> createUser(UserRequest userRequest) {
+        if (userRequest.getRoles() != null && !userRequest.getRoles().isEmpty()
+                || userRequest.getGroups() != null && !userRequest.getGroups().isEmpty()) {
+            return Mono.error(new BackendResourcesException("Roles and groups on create are supported by /api/users only",
+                    HttpStatus.BAD_REQUEST));
+        }
+        UserRepresentation user = prepareUserRepresentation(userRequest);
+        Mono<URI> location = keycloakAdminWebClient.post()
+                .uri("/users")
+                .bodyValue(user)
+                .retrieve()
+                .toBodilessEntity()
+                .mapNotNull(response -> response.getHeaders().getLocation());
+        return keycloakGuard.call(CREATE_USER, location)
+                .map(uri -> {
+                    String path = uri.getPath();
+                    UUID createdId = UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
+                    log.info("Created UserId: {}", createdId);
+                    userSearchIndex.add(createdId, user);
+                    userResponseCache.invalidate(createdId);
+                    return createdId;
+                })
+                .onErrorMap(WebClientResponseException.class, ex -> {
+                    log.error("Exception on \"createUser\": ", ex);
+                    return new BackendResourcesException(ex.getMessage(), HttpStatus.resolve(ex.getStatusCode().value()));
+                });
+    }
+
+    @Override
+    public Mono<UserResponse> getUserById(UUID id) {
+        UserResponse cached = userResponseCache.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        // Параллельные запросы одного id подписываются на один и тот же вызов Keycloak
+        return inFlight.computeIfAbsent(id, this::sharedLoad)
+                .onErrorResume(BackendResourcesException.class, ex -> {
+                    UserResponse stale = serveStale && isUnavailable(ex) ? staleUserResponseCache.getIfPresent(id) : null;
+                    if (stale == null) {
+                        return Mono.error(ex);
+                    }
+                    log.warn("Serving stale user {} after \"{}\"", id, ex.getMessage());
+                    return Mono.just(stale);
+                });
+    }
+
+    private Mono<UserResponse> sharedLoad(UUID id) {
+        AtomicReference<Mono<UserResponse>> self = new AtomicReference<>();
+        // Запись снимается до того, как результат получат подписчики: иначе следующий запрос
+        // мог бы получить уже завершённый вызов в обход инвалидации кэша
+        Mono<UserResponse> shared = loadUser(id)
+                .doOnSuccess(response -> inFlight.remove(id, self.get()))
+                .doOnError(ex -> inFlight.remove(id, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    private Mono<UserResponse> loadUser(UUID id) {
+        Optional<MembershipIndex.Membership> membership = membershipIndex.find(id);
+        Mono<UserResponse> userResponse;
+        if (membership.isPresent()) {
+            userResponse = fetchRepresentation(id).map(representation -> userMapper.toUserResponse(representation,
+                    membership.get().roles(), membership.get().groups()));
+        } else {
+            Mono<List<RoleRepresentation>> roles = keycloakGuard.call(GET_ROLE_MAPPINGS, keycloakAdminWebClient.get()
+                    .uri("/users/{id}/role-mappings/realm", id)
+                    .retrieve()
+                    .bodyToMono(ROLES));
+            Mono<List<GroupRepresentation>> groups = keycloakGuard.call(GET_GROUPS, keycloakAdminWebClient.get()
+                    .uri("/users/{id}/groups", id)
+                    .retrieve()
+                    .bodyToMono(GROUPS));
+            // zip отменяет оставшиеся вызовы при первой ошибке
+            userResponse = Mono.zip(fetchRepresentation(id), roles, groups)
+                    .map(result -> userMapper.userRepresentationToUserResponse(result.getT1(), result.getT2(),
+                            result.getT3()));
+        }
+        return userResponse
+                .timeout(lookupTimeout, Mono.error(() -> {
+                    log.error("Timeout on \"getUserById\" after {}", lookupTimeout);
+                    return new BackendResourcesException("Keycloak lookup timed out", HttpStatus.GATEWAY_TIMEOUT);
+                }))
+                .onErrorMap(ex -> !(ex instanceof BackendResourcesException), this::lookupFailure)
+                .doOnNext(response -> {
+                    userResponseCache.put(id, response);
+                    staleUserResponseCache.put(id, staleCopy(response));
+                });
+    }
+
+    private Mono<UserRepresentation> fetchRepresentation(UUID id) {
+        return keycloakGuard.call(GET_REPRESENTATION, keycloakAdminWebClient.get()
+                .uri("/users/{id}", id)
+                .retrieve()
+                .bodyToMono(UserRepresentation.class));
+    }
+
+    private static UserResponse staleCopy(UserResponse userResponse) {
+        UserResponse stale = new UserResponse(userResponse.getFirstName(), userResponse.getLastName(),
+                userResponse.getEmail(), userResponse.getRoles(), userResponse.getGroups());
+        stale.setStale(true);
+        return stale;
+    }
+
+    private static boolean isUnavailable(BackendResourcesException ex) {
+        return ex.getHttpStatus() == null || ex.getHttpStatus().is5xxServerError();
+    }
+
+    private BackendResourcesException lookupFailure(Throwable ex) {
+        if (ex instanceof WebClientResponseException webClientResponseException
+                && webClientResponseException.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+            return new BackendResourcesException(ex.getMessage(), HttpStatus.NOT_FOUND);
+        }
+        log.error("Exception on \"getUserById\": ", ex);
+        return new BackendResourcesException(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private UserRepresentation prepareUserRepresentation(UserRequest userRequest) {
+        CredentialRepresentation password = new CredentialRepresentation();
+        password.setTemporary(false);
+        password.setType(CredentialRepresentation.PASSWORD);
+        password.setValue(userRequest.getPassword());
+        UserRepresentation newUser = new UserRepresentation();
+        newUser.setUsername(userRequest.getUsername());
+        newUser.setEmail(userRequest.getEmail());
+        newUser.setCredentials(List.of(password));
+        newUser.setEnabled(true);
+        newUser.setFirstName(userRequest.getFirstName());
+        newUser.setLastName(userRequest.getLastName());
+        return newUser;
+    }
+}
@@ -0,0 +1,84 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Схлопывает одновременные загрузки одного ключа: первый вызов выполняет {@code loader},
+ * остальные ждут его результат не дольше {@code waitTimeout}.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration waitTimeout;
+    private final Counter coalesced;
+    private final Counter waitTimeouts;
+
+    public SingleFlight(String name, boolean enabled, Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+        this.coalesced = Counter.builder("single.flight.coalesced")
+                .description("Calls that attached to an already running load instead of issuing their own")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.waitTimeouts = Counter.builder("single.flight.wait.timeouts")
+                .description("Coalesced calls that gave up waiting for the running load")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("single.flight.in.flight", inFlight, Map::size)
+                .description("Loads currently in flight")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CompletableFuture<V> leader = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, leader);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            V value = loader.get();
+            leader.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            leader.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BackendResourcesException(ex.getCause().getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (TimeoutException ex) {
+            waitTimeouts.increment();
+            throw new BackendResourcesException("Timed out waiting for an in-flight lookup", HttpStatus.GATEWAY_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BackendResourcesException("Lookup interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserBatchResponse;
+import com.itm.space.backendresources.api.response.UserMultiGetResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface UserBatchService {
+
+    UserBatchResponse createUsers(List<UserRequest> userRequests);
+
+    UserMultiGetResponse getUsers(List<UUID> ids);
+
+}
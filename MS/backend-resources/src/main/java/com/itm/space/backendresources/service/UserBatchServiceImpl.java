@@ -0,0 +1,145 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserBatchItemResponse;
+import com.itm.space.backendresources.api.response.UserBatchResponse;
+import com.itm.space.backendresources.api.response.UserMultiGetFailureResponse;
+import com.itm.space.backendresources.api.response.UserMultiGetResponse;
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBatchServiceImpl implements UserBatchService {
+    private final UserService userService;
+    private final Validator validator;
+    @Qualifier("keycloakBulkExecutor")
+    private final ExecutorService bulkExecutor;
+
+    @Value("${users.batch.max-size}")
+    private int maxBatchSize;
+    @Value("${users.batch.concurrency}")
+    private int concurrency;
+    @Value("${users.multi-get.max-ids}")
+    private int maxMultiGetIds;
+    @Value("${users.multi-get.concurrency}")
+    private int multiGetConcurrency;
+
+    @Override
+    public UserBatchResponse createUsers(List<UserRequest> userRequests) {
+        if (userRequests.size() > maxBatchSize) {
+            throw new BackendResourcesException("Batch should contain at most " + maxBatchSize + " users",
+                    HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+        UserBatchItemResponse[] items = new UserBatchItemResponse[userRequests.size()];
+        List<Integer> validIndexes = new ArrayList<>(userRequests.size());
+        for (int index = 0; index < userRequests.size(); index++) {
+            String violations = validate(userRequests.get(index));
+            if (violations == null) {
+                validIndexes.add(index);
+            } else {
+                items[index] = failed(index, userRequests.get(index), HttpStatus.BAD_REQUEST, violations);
+            }
+        }
+
+        ConcurrentPipeline.process(validIndexes, concurrency, bulkExecutor,
+                        index -> created(index, userRequests.get(index)),
+                        (index, ex) -> failed(index, userRequests.get(index), ex))
+                .forEach(item -> items[item.getIndex()] = item);
+
+        int createdCount = (int) Arrays.stream(items)
+                .filter(item -> item.getStatus() == HttpStatus.CREATED.value())
+                .count();
+        log.info("Batch of {} users processed: {} created, {} failed",
+                items.length, createdCount, items.length - createdCount);
+        return new UserBatchResponse(items.length, createdCount, items.length - createdCount, Arrays.asList(items));
+    }
+
+    @Override
+    public UserMultiGetResponse getUsers(List<UUID> ids) {
+        List<UUID> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.size() > maxMultiGetIds) {
+            throw new BackendResourcesException("At most " + maxMultiGetIds + " ids can be requested at once",
+                    HttpStatus.BAD_REQUEST);
+        }
+        List<Lookup> lookups = ConcurrentPipeline.process(distinctIds, multiGetConcurrency, bulkExecutor,
+                id -> new Lookup(id, userService.getUserById(id), null),
+                (id, ex) -> new Lookup(id, null, ex));
+
+        Map<UUID, UserResponse> users = new LinkedHashMap<>();
+        List<UUID> notFound = new ArrayList<>();
+        // Ошибка по одному id (таймаут, 5xx, переполненный bulkhead) не должна ронять всю страницу
+        List<UserMultiGetFailureResponse> failed = new ArrayList<>();
+        for (Lookup lookup : lookups) {
+            if (lookup.error() == null) {
+                users.put(lookup.id(), lookup.userResponse());
+                continue;
+            }
+            HttpStatus status = status(lookup.error());
+            if (status == HttpStatus.NOT_FOUND) {
+                notFound.add(lookup.id());
+            } else {
+                log.warn("Multi-get lookup of user {} failed with {}: {}", lookup.id(), status, lookup.error().getMessage());
+                failed.add(new UserMultiGetFailureResponse(lookup.id(), status.value(), lookup.error().getMessage()));
+            }
+        }
+        return new UserMultiGetResponse(users, notFound, failed);
+    }
+
+    private String validate(UserRequest userRequest) {
+        if (userRequest == null) {
+            return "User should not be null";
+        }
+        Set<ConstraintViolation<UserRequest>> violations = validator.validate(userRequest);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private UserBatchItemResponse created(int index, UserRequest userRequest) {
+        UUID id = userService.createUser(userRequest);
+        return new UserBatchItemResponse(index, userRequest.getUsername(), id, HttpStatus.CREATED.value(), null);
+    }
+
+    private UserBatchItemResponse failed(int index, UserRequest userRequest, Throwable ex) {
+        return failed(index, userRequest, status(ex), ex.getMessage());
+    }
+
+    private static HttpStatus status(Throwable ex) {
+        return ex instanceof BackendResourcesException backendResourcesException
+                && backendResourcesException.getHttpStatus() != null
+                ? backendResourcesException.getHttpStatus()
+                : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    private UserBatchItemResponse failed(int index, UserRequest userRequest, HttpStatus status, String error) {
+        String username = userRequest != null ? userRequest.getUsername() : null;
+        return new UserBatchItemResponse(index, username, null, status.value(), error);
+    }
+
+    private record Lookup(UUID id, UserResponse userResponse, Throwable error) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserSearchFilter;
+import com.itm.space.backendresources.api.response.UserSearchResponse;
+import com.itm.space.backendresources.api.response.UserSummaryResponse;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface UserListingService {
+
+    /**
+     * Ленивый поток пользователей realm. Страницы запрашиваются по мере чтения,
+     * поэтому поток обязательно закрывать.
+     */
+    Stream<UserSummaryResponse> streamUsers(UserSearchFilter filter);
+
+    List<UserSearchResponse> searchUsers(String query, int limit);
+
+}
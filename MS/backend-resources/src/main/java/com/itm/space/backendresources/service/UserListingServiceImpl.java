@@ -0,0 +1,105 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.api.request.UserSearchFilter;
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.api.response.UserSearchResponse;
+import com.itm.space.backendresources.api.response.UserSummaryResponse;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import com.itm.space.backendresources.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.LIST_USERS;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.SEARCH_USERS;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserListingServiceImpl implements UserListingService {
+    private final UsersResource keycloakUsers;
+    private final UserMapper userMapper;
+    @Qualifier("keycloakBulkExecutor")
+    private final ExecutorService bulkExecutor;
+    private final UserSearchIndex userSearchIndex;
+    private final MembershipIndex membershipIndex;
+    private final KeycloakGuard keycloakGuard;
+
+    @Value("${users.listing.page-size}")
+    private int pageSize;
+    @Value("${users.search.max-limit}")
+    private int maxSearchLimit;
+
+    @Override
+    public Stream<UserSummaryResponse> streamUsers(UserSearchFilter filter) {
+        PrefetchingPageIterator<UserRepresentation> pages =
+                new PrefetchingPageIterator<>((first, max) -> fetchPage(filter, first, max), pageSize, bulkExecutor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false)
+                .onClose(pages::close)
+                .map(userMapper::toUserSummaryResponse);
+    }
+
+    @Override
+    public List<UserSearchResponse> searchUsers(String query, int limit) {
+        if (limit < 1 || limit > maxSearchLimit) {
+            throw new BackendResourcesException("Limit should be between 1 and " + maxSearchLimit,
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (userSearchIndex.isReady()) {
+            return userSearchIndex.search(query, limit).stream()
+                    .map(hit -> searchResponse(hit.id(), hit.username(), hit.firstName(), hit.lastName(), hit.email()))
+                    .toList();
+        }
+        // Индекс выключен или ещё не собран — отвечаем медленнее, но тем же форматом
+        return fetchPage(new UserSearchFilter(query, null, null, null, null, null), 0, limit).stream()
+                .map(user -> searchResponse(UUID.fromString(user.getId()), user.getUsername(),
+                        user.getFirstName(), user.getLastName(), user.getEmail()))
+                .toList();
+    }
+
+    private UserSearchResponse searchResponse(UUID id, String username, String firstName, String lastName,
+                                              String email) {
+        Optional<MembershipIndex.Membership> membership = membershipIndex.find(id);
+        List<String> roles = membership.map(MembershipIndex.Membership::roles)
+                .orElse(membershipIndex.isReady() ? List.of() : null);
+        List<String> groups = membership.map(MembershipIndex.Membership::groups)
+                .orElse(membershipIndex.isReady() ? List.of() : null);
+        return new UserSearchResponse(id, username, new UserResponse(firstName, lastName, email, roles, groups));
+    }
+
+    private List<UserRepresentation> fetchPage(UserSearchFilter filter, int first, int max) {
+        try {
+            if (filter.getSearch() != null) {
+                return keycloakGuard.call(SEARCH_USERS,
+                        () -> keycloakUsers.search(filter.getSearch(), first, max, true));
+            }
+            if (filter.isFieldFilter()) {
+                return keycloakGuard.call(SEARCH_USERS, () -> keycloakUsers.search(filter.getUsername(),
+                        filter.getFirstName(), filter.getLastName(), filter.getEmail(), first, max,
+                        filter.getEnabled(), true));
+            }
+            return keycloakGuard.call(LIST_USERS, () -> keycloakUsers.list(first, max));
+        } catch (WebApplicationException ex) {
+            log.error("Exception on \"fetchPage\" at {}: ", first, ex);
+            throw new BackendResourcesException(ex.getMessage(), HttpStatus.resolve(ex.getResponse().getStatus()));
+        }
+    }
+}
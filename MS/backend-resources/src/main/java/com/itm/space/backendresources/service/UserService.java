@@ -1,14 +1,18 @@
 package com.itm.space.backendresources.service;
 
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.request.UserRequest;
 import com.itm.space.backendresources.api.response.UserResponse;
 
+import java.util.Set;
 import java.util.UUID;
 
 public interface UserService {
 
-    void createUser(UserRequest userRequest);
+    UUID createUser(UserRequest userRequest);
 
     UserResponse getUserById(UUID id);
 
+    UserResponse getUserById(UUID id, Set<UserField> fields);
+
 }
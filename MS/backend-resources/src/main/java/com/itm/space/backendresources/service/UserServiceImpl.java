@@ -1,66 +1,391 @@
 package com.itm.space.backendresources.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.request.UserRequest;
 import com.itm.space.backendresources.api.response.UserResponse;
 import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.exception.OrphanedUserException;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.RoleGroupCatalog;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
 import com.itm.space.backendresources.mapper.UserMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.keycloak.admin.client.CreatedResponseUtil;
-import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.ASSIGN_ROLES;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.CREATE_USER;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.DELETE_USER;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_GROUPS;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_REPRESENTATION;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.GET_ROLE_MAPPINGS;
+import static com.itm.space.backendresources.keycloak.KeycloakOperation.JOIN_GROUP;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-    private final Keycloak keycloakClient;
+    private final UsersResource keycloakUsers;
     private final UserMapper userMapper;
+    @Qualifier("keycloakLookupExecutor")
+    private final ExecutorService lookupExecutor;
+    @Qualifier("userResponseCache")
+    private final Cache<UUID, UserResponse> userResponseCache;
+    private final SingleFlight<UUID, UserResponse> userLookupSingleFlight;
+    private final MembershipIndex membershipIndex;
+    private final KeycloakGuard keycloakGuard;
+    @Qualifier("staleUserResponseCache")
+    private final Cache<UUID, UserResponse> staleUserResponseCache;
+    private final RoleGroupCatalog roleGroupCatalog;
+    private final UserSearchIndex userSearchIndex;
 
-    @Value("${keycloak.realm}")
-    private String realm;
+    @Value("${keycloak.lookup.concurrent}")
+    private boolean concurrentLookup;
+    @Value("${keycloak.lookup.timeout}")
+    private Duration lookupTimeout;
+    @Value("${users.stale.enabled}")
+    private boolean serveStale;
 
-    public void createUser(UserRequest userRequest) {
+    public UUID createUser(UserRequest userRequest) {
+        // Имена ролей и групп проверяются до создания, чтобы опечатка не стоила создания и отката пользователя
+        RoleGroupCatalog.Assignments assignments = hasAssignments(userRequest)
+                ? roleGroupCatalog.resolve(userRequest.getRoles(), userRequest.getGroups())
+                : RoleGroupCatalog.Assignments.NONE;
         CredentialRepresentation password = preparePasswordRepresentation(userRequest.getPassword());
         UserRepresentation user = prepareUserRepresentation(userRequest, password);
+        UUID createdId;
         try {
-            Response response = keycloakClient.realm(realm).users().create(user);
+            Response response = keycloakGuard.call(CREATE_USER, () -> keycloakUsers.create(user));
             String userId = CreatedResponseUtil.getCreatedId(response);
             log.info("Created UserId: {}", userId);
+            if (userId == null) {
+                return null;
+            }
+            createdId = UUID.fromString(userId);
         } catch (WebApplicationException ex) {
             log.error("Exception on \"createUser\": ", ex);
             throw new BackendResourcesException(ex.getMessage(), HttpStatus.resolve(ex.getResponse().getStatus()));
         }
+        if (!assignments.isEmpty()) {
+            assign(createdId, assignments);
+        }
+        userSearchIndex.add(createdId, user);
+        userResponseCache.invalidate(createdId);
+        return createdId;
+    }
+
+    private static boolean hasAssignments(UserRequest userRequest) {
+        return userRequest.getRoles() != null && !userRequest.getRoles().isEmpty()
+                || userRequest.getGroups() != null && !userRequest.getGroups().isEmpty();
+    }
+
+    /**
+     * Назначение ролей и вступление в группы идут параллельно; если хоть один вызов не прошёл,
+     * пользователь удаляется, чтобы не остался созданным без прав.
+     */
+    private void assign(UUID userId, RoleGroupCatalog.Assignments assignments) {
+        UserResource userResource = keycloakUsers.get(String.valueOf(userId));
+        ConcurrentCalls calls = new ConcurrentCalls(lookupExecutor);
+        try {
+            if (!assignments.roles().isEmpty()) {
+                calls.submit(() -> keycloakGuard.call(ASSIGN_ROLES, () -> {
+                    userResource.roles().realmLevel().add(assignments.roles());
+                    return null;
+                }));
+            }
+            for (GroupRepresentation group : assignments.groups()) {
+                calls.submit(() -> keycloakGuard.call(JOIN_GROUP, () -> {
+                    userResource.joinGroup(group.getId());
+                    return null;
+                }));
+            }
+            calls.awaitAll(lookupTimeout);
+        } catch (RejectedExecutionException ex) {
+            throw rollback(userId, new BackendResourcesException("Too many concurrent Keycloak calls",
+                    HttpStatus.SERVICE_UNAVAILABLE), calls);
+        } catch (ExecutionException ex) {
+            throw rollback(userId, assignmentFailure(ex.getCause()), calls);
+        } catch (TimeoutException ex) {
+            throw rollback(userId, new BackendResourcesException("Role and group assignment timed out",
+                    HttpStatus.GATEWAY_TIMEOUT), calls);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw rollback(userId, new BackendResourcesException("User creation interrupted",
+                    HttpStatus.SERVICE_UNAVAILABLE), calls);
+        }
+    }
+
+    /**
+     * @return исключение для клиента; {@link OrphanedUserException}, если пользователь остался в Keycloak
+     */
+    private BackendResourcesException rollback(UUID userId, BackendResourcesException failure, ConcurrentCalls calls) {
+        calls.cancel();
+        log.error("Assigning roles and groups to user {} failed, deleting the user: {}", userId, failure.getMessage());
+        try (Response response = keycloakGuard.call(DELETE_USER,
+                () -> keycloakUsers.delete(String.valueOf(userId)))) {
+            // 404 — пользователя уже нет, откатывать нечего
+            if (response.getStatus() >= 300 && response.getStatus() != HttpStatus.NOT_FOUND.value()) {
+                throw new WebApplicationException(response);
+            }
+            log.info("Rolled back user {}: HTTP {}", userId, response.getStatus());
+        } catch (RuntimeException ex) {
+            log.error("Rollback of user {} failed, the user is left without roles and groups", userId, ex);
+            return new OrphanedUserException(userId, "User " + userId + " was created without its roles and groups: "
+                    + failure.getMessage() + "; deleting it failed: " + ex.getMessage());
+        }
+        return new BackendResourcesException("User was not created, role and group assignment failed: "
+                + failure.getMessage(), failure.getHttpStatus());
+    }
+
+    private static BackendResourcesException assignmentFailure(Throwable ex) {
+        if (ex instanceof BackendResourcesException backendResourcesException) {
+            return backendResourcesException;
+        }
+        if (ex instanceof WebApplicationException webApplicationException) {
+            return new BackendResourcesException(ex.getMessage(),
+                    HttpStatus.resolve(webApplicationException.getResponse().getStatus()));
+        }
+        return new BackendResourcesException(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     @Override
     public UserResponse getUserById(UUID id) {
+        UserResponse cached = userResponseCache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return userLookupSingleFlight.execute(id, () -> loadUser(id));
+        } catch (BackendResourcesException ex) {
+            UserResponse stale = serveStale && isUnavailable(ex) ? staleUserResponseCache.getIfPresent(id) : null;
+            if (stale == null) {
+                throw ex;
+            }
+            log.warn("Serving stale user {} after \"{}\"", id, ex.getMessage());
+            return stale;
+        }
+    }
+
+    /**
+     * Идёт в Keycloak только за тем, что нужно для запрошенных полей. Если нужно больше одного вызова,
+     * выгоднее загрузить пользователя целиком: полный ответ попадает в кэш и пригодится следующим запросам.
+     */
+    @Override
+    public UserResponse getUserById(UUID id, Set<UserField> fields) {
+        UserResponse cached = userResponseCache.getIfPresent(id);
+        if (cached != null) {
+            return userMapper.selectFields(cached, fields);
+        }
+        Optional<MembershipIndex.Membership> membership = fields.contains(UserField.ROLES)
+                || fields.contains(UserField.GROUPS) ? membershipIndex.find(id) : Optional.empty();
+        boolean needsRepresentation = fields.stream().anyMatch(UserField::isProfile);
+        boolean needsRoles = fields.contains(UserField.ROLES) && membership.isEmpty();
+        boolean needsGroups = fields.contains(UserField.GROUPS) && membership.isEmpty();
+        if ((needsRepresentation ? 1 : 0) + (needsRoles ? 1 : 0) + (needsGroups ? 1 : 0) > 1) {
+            return userMapper.selectFields(getUserById(id), fields);
+        }
+        try {
+            UserResource userResource = keycloakUsers.get(String.valueOf(id));
+            UserRepresentation userRepresentation = needsRepresentation ? fetchRepresentation(userResource) : null;
+            List<String> roles = needsRoles
+                    ? userMapper.mapRoleRepresentationToString(fetchRealmRoles(userResource))
+                    : membership.map(MembershipIndex.Membership::roles).orElse(null);
+            List<String> groups = needsGroups
+                    ? userMapper.mapGroupRepresentationToString(fetchGroups(userResource))
+                    : membership.map(MembershipIndex.Membership::groups).orElse(null);
+            return userMapper.toUserResponse(userRepresentation, roles, groups, fields);
+        } catch (BackendResourcesException ex) {
+            UserResponse stale = serveStale && isUnavailable(ex) ? staleUserResponseCache.getIfPresent(id) : null;
+            if (stale == null) {
+                throw ex;
+            }
+            log.warn("Serving stale user {} after \"{}\"", id, ex.getMessage());
+            return userMapper.selectFields(stale, fields);
+        }
+    }
+
+    private UserResponse loadUser(UUID id) {
+        UserResource userResource = keycloakUsers.get(String.valueOf(id));
+        Optional<MembershipIndex.Membership> membership = membershipIndex.find(id);
+        UserResponse userResponse;
+        if (membership.isPresent()) {
+            userResponse = userMapper.toUserResponse(fetchRepresentation(userResource),
+                    membership.get().roles(), membership.get().groups());
+        } else {
+            userResponse = concurrentLookup
+                    ? fetchConcurrently(userResource)
+                    : fetchSequentially(userResource);
+        }
+        userResponseCache.put(id, userResponse);
+        staleUserResponseCache.put(id, staleCopy(userResponse));
+        return userResponse;
+    }
+
+    private static UserResponse staleCopy(UserResponse userResponse) {
+        UserResponse stale = new UserResponse(userResponse.getFirstName(), userResponse.getLastName(),
+                userResponse.getEmail(), userResponse.getRoles(), userResponse.getGroups());
+        stale.setStale(true);
+        return stale;
+    }
+
+    private static boolean isUnavailable(BackendResourcesException ex) {
+        return ex.getHttpStatus() == null || ex.getHttpStatus().is5xxServerError();
+    }
+
+    private UserRepresentation fetchRepresentation(UserResource userResource) {
+        try {
+            return keycloakGuard.call(GET_REPRESENTATION, userResource::toRepresentation);
+        } catch (RuntimeException ex) {
+            throw lookupFailure(ex);
+        }
+    }
+
+    private List<RoleRepresentation> fetchRealmRoles(UserResource userResource) {
+        try {
+            return keycloakGuard.call(GET_ROLE_MAPPINGS, () -> userResource.roles().getAll().getRealmMappings());
+        } catch (RuntimeException ex) {
+            throw lookupFailure(ex);
+        }
+    }
+
+    private List<GroupRepresentation> fetchGroups(UserResource userResource) {
+        try {
+            return keycloakGuard.call(GET_GROUPS, userResource::groups);
+        } catch (RuntimeException ex) {
+            throw lookupFailure(ex);
+        }
+    }
+
+    private UserResponse fetchSequentially(UserResource userResource) {
         UserRepresentation userRepresentation;
         List<RoleRepresentation> userRoles;
         List<GroupRepresentation> userGroups;
         try {
-            userRepresentation = keycloakClient.realm(realm).users().get(String.valueOf(id)).toRepresentation();
-            userRoles = keycloakClient.realm(realm)
-                    .users().get(String.valueOf(id)).roles().getAll().getRealmMappings();
-            userGroups = keycloakClient.realm(realm).users().get(String.valueOf(id)).groups();
+            userRepresentation = keycloakGuard.call(GET_REPRESENTATION, userResource::toRepresentation);
+            userRoles = keycloakGuard.call(GET_ROLE_MAPPINGS,
+                    () -> userResource.roles().getAll().getRealmMappings());
+            userGroups = keycloakGuard.call(GET_GROUPS, userResource::groups);
         } catch (RuntimeException ex) {
-            log.error("Exception on \"getUserById\": ", ex);
-            throw new BackendResourcesException(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            throw lookupFailure(ex);
         }
         return userMapper.userRepresentationToUserResponse(userRepresentation, userRoles, userGroups);
     }
 
+    private UserResponse fetchConcurrently(UserResource userResource) {
+        ConcurrentCalls calls = new ConcurrentCalls(lookupExecutor);
+        try {
+            Future<UserRepresentation> representation = calls.submit(
+                    () -> keycloakGuard.call(GET_REPRESENTATION, userResource::toRepresentation));
+            Future<List<RoleRepresentation>> roles = calls.submit(() -> keycloakGuard.call(GET_ROLE_MAPPINGS,
+                    () -> userResource.roles().getAll().getRealmMappings()));
+            Future<List<GroupRepresentation>> groups = calls.submit(
+                    () -> keycloakGuard.call(GET_GROUPS, userResource::groups));
+            calls.awaitAll(lookupTimeout);
+            return userMapper.userRepresentationToUserResponse(representation.get(), roles.get(), groups.get());
+        } catch (RejectedExecutionException ex) {
+            log.warn("Keycloak lookup executor is saturated");
+            throw new BackendResourcesException("Too many concurrent user lookups", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException ex) {
+            throw lookupFailure(ex.getCause());
+        } catch (TimeoutException ex) {
+            log.error("Timeout on \"getUserById\" after {}", lookupTimeout);
+            throw new BackendResourcesException("Keycloak lookup timed out", HttpStatus.GATEWAY_TIMEOUT);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BackendResourcesException("User lookup interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            calls.cancel();
+        }
+    }
+
+    /**
+     * Вызовы Keycloak на общем пуле, которые ждут вместе: все или до первой ошибки.
+     * {@link #cancel()} снимает ещё не начатые вызовы и прерывает идущие: ожидание места в bulkhead
+     * прерывается сразу, уже отправленный запрос держит поток до ответа или read-timeout.
+     */
+    private static final class ConcurrentCalls {
+        private final ExecutorService executor;
+        private final List<Future<?>> calls = new ArrayList<>();
+        private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+
+        private ConcurrentCalls(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        /**
+         * @throws RejectedExecutionException если пул переполнен; уже отправленные вызовы снимет {@link #cancel()}
+         */
+        <T> Future<T> submit(Callable<T> call) {
+            FutureTask<T> task = new FutureTask<>(call) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            calls.add(task);
+            executor.execute(task);
+            return task;
+        }
+
+        void awaitAll(Duration timeout) throws ExecutionException, TimeoutException, InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            for (int i = 0; i < calls.size(); i++) {
+                Future<?> call = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (call == null) {
+                    throw new TimeoutException();
+                }
+                call.get();
+            }
+        }
+
+        void cancel() {
+            calls.forEach(call -> call.cancel(true));
+        }
+    }
+
+    private BackendResourcesException lookupFailure(Throwable ex) {
+        if (ex instanceof BackendResourcesException backendResourcesException) {
+            return backendResourcesException;
+        }
+        if (ex instanceof WebApplicationException webApplicationException
+                && webApplicationException.getResponse().getStatus() == HttpStatus.NOT_FOUND.value()) {
+            return new BackendResourcesException(ex.getMessage(), HttpStatus.NOT_FOUND);
+        }
+        log.error("Exception on \"getUserById\": ", ex);
+        return new BackendResourcesException(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     private CredentialRepresentation preparePasswordRepresentation(String password) {
         CredentialRepresentation credentialRepresentation = new CredentialRepresentation();
         credentialRepresentation.setTemporary(false);
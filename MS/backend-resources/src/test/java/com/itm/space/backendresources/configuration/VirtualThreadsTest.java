@@ -0,0 +1,64 @@
+package com.itm.space.backendresources.configuration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void newThreadPerTaskExecutor_OnJavaWithoutVirtualThreads_ShouldFailFast() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+        assertTrue(ex.getMessage().startsWith("Virtual threads need Java 21"));
+    }
+
+    @Test
+    void newThreadPerTaskExecutor_ShouldRunTasksOnNamedVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            assertTrue(VirtualThreads.isVirtual(thread));
+            assertTrue(thread.getName().startsWith("test-"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void virtualThreadExecutor_ShouldPropagateSecurityContext() throws Exception {
+        assumeTrue(VirtualThreads.isSupported());
+        ExecutorService executor = new DelegatingSecurityContextExecutorService(
+                VirtualThreads.newThreadPerTaskExecutor("test-"));
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("moderator", "n/a", "ROLE_MODERATOR"));
+        try {
+            Authentication seen = executor.submit(() -> SecurityContextHolder.getContext().getAuthentication())
+                    .get(5, TimeUnit.SECONDS);
+
+            assertNotNull(seen);
+            assertEquals("moderator", seen.getName());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
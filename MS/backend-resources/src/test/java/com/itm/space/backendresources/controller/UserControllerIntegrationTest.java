@@ -1,24 +1,41 @@
 package com.itm.space.backendresources.controller;
 
 import com.itm.space.backendresources.BaseIntegrationTest;
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.request.UserRequest;
 import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.exception.BackendResourcesException;
 import com.itm.space.backendresources.service.UserService;
 import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Duration;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.times;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class UserControllerIntegrationTest extends BaseIntegrationTest {
@@ -26,6 +43,9 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UsersResource usersResource;
+
     @Test
     @WithMockUser(roles = "MODERATOR")
     void createUser_ShouldCallServiceAndReturnOk() throws Exception {
@@ -167,4 +187,233 @@ class UserControllerIntegrationTest extends BaseIntegrationTest {
 
         verify(userService, never()).createUser(any(UserRequest.class));
     }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void createBatch_ShouldCreateValidUsersAndReportInvalidOnes() throws Exception {
+
+        UUID createdId = UUID.randomUUID();
+        when(userService.createUser(any(UserRequest.class))).thenReturn(createdId);
+
+        List<UserRequest> userRequests = List.of(
+                new UserRequest("testuser", "test@example.com", "password123", "John", "Doe"),
+                new UserRequest("a", "invalid-email", "password123", "John", "Doe")
+        );
+
+        mvc.perform(requestWithContent(
+                        MockMvcRequestBuilders.post("/api/users/batch"), userRequests))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(createdId.toString()))
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[1].status").value(400));
+
+        // Невалидный пользователь отсекается до обращения к Keycloak
+        verify(userService, times(1)).createUser(any(UserRequest.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void createBatch_FromNdjson_ShouldCreateEveryLine() throws Exception {
+
+        when(userService.createUser(any(UserRequest.class))).thenReturn(UUID.randomUUID());
+
+        String ndjson = """
+                {"username":"first","email":"first@example.com","password":"password123","firstName":"John","lastName":"Doe"}
+                {"username":"second","email":"second@example.com","password":"password123","firstName":"Jane","lastName":"Doe"}
+                """;
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2));
+
+        verify(userService, times(2)).createUser(any(UserRequest.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUserById_WithFields_ShouldReturnOnlyRequestedFields() throws Exception {
+
+        UUID userId = UUID.randomUUID();
+        when(userService.getUserById(userId, EnumSet.of(UserField.FIRST_NAME, UserField.EMAIL)))
+                .thenReturn(new UserResponse("John", null, "test@example.com", null, null));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users/{id}", userId)
+                        .param("fields", "firstName,email"))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("John"))
+                .andExpect(jsonPath("$.email").value("test@example.com"))
+                .andExpect(content().string(not(containsString("lastName"))))
+                .andExpect(content().string(not(containsString("roles"))));
+
+        verify(userService, never()).getUserById(userId);
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUserById_WithoutFields_ShouldKeepNullFields() throws Exception {
+
+        UUID userId = UUID.randomUUID();
+        when(userService.getUserById(userId)).thenReturn(new UserResponse("John", null, null, List.of(), List.of()));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users/{id}", userId))
+
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"lastName\":null")))
+                .andExpect(content().string(containsString("\"email\":null")));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUserById_WithUnknownField_ShouldReturnBadRequest() throws Exception {
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users/{id}", UUID.randomUUID())
+                        .param("fields", "firstName,password"))
+
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUserById_ShouldBePrivatelyCacheable() throws Exception {
+
+        UUID userId = UUID.randomUUID();
+        when(userService.getUserById(userId)).thenReturn(new UserResponse(
+                "John", "Doe", "test@example.com", List.of("MODERATOR"), List.of("Moderators")));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users/{id}", userId))
+
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, private"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUserById_WhenNotFound_ShouldNotBeCacheable() throws Exception {
+
+        UUID userId = UUID.randomUUID();
+        when(userService.getUserById(userId))
+                .thenThrow(new BackendResourcesException("HTTP 404 Not Found", HttpStatus.NOT_FOUND));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users/{id}", userId))
+
+                .andExpect(status().isNotFound())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, not(containsString("private"))));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUsersByIds_ShouldReturnFoundUsersAndNotFoundIds() throws Exception {
+
+        UUID existingId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        when(userService.getUserById(existingId)).thenReturn(new UserResponse(
+                "John", "Doe", "test@example.com", List.of("MODERATOR"), List.of("Moderators")));
+        when(userService.getUserById(missingId))
+                .thenThrow(new BackendResourcesException("HTTP 404 Not Found", HttpStatus.NOT_FOUND));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users")
+                        .param("ids", existingId + "," + missingId))
+
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users['" + existingId + "'].firstName").value("John"))
+                .andExpect(jsonPath("$.notFound[0]").value(missingId.toString()));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void getUsersByIds_WhenOneLookupFails_ShouldReportItAndReturnTheRest() throws Exception {
+
+        UUID existingId = UUID.randomUUID();
+        UUID failingId = UUID.randomUUID();
+        when(userService.getUserById(existingId)).thenReturn(new UserResponse(
+                "John", "Doe", "test@example.com", List.of("MODERATOR"), List.of("Moderators")));
+        when(userService.getUserById(failingId))
+                .thenThrow(new BackendResourcesException("Keycloak timeout", HttpStatus.GATEWAY_TIMEOUT));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/users")
+                        .param("ids", existingId + "," + failingId))
+
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(jsonPath("$.users['" + existingId + "'].firstName").value("John"))
+                .andExpect(jsonPath("$.notFound").isEmpty())
+                .andExpect(jsonPath("$.failed[0].id").value(failingId.toString()))
+                .andExpect(jsonPath("$.failed[0].status").value(504))
+                .andExpect(jsonPath("$.failed[0].error").value("Keycloak timeout"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void listUsers_AsNdjson_ShouldStreamOneUserPerLine() throws Exception {
+
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        when(usersResource.search("doe", 0, 500, true))
+                .thenReturn(List.of(userRepresentation(firstId, "jdoe"), userRepresentation(secondId, "adoe")));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/users")
+                        .param("search", "doe")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"id\":\"" + firstId + "\",\"username\":\"jdoe\",\"firstName\":null,"
+                                + "\"lastName\":null,\"email\":null,\"enabled\":true}\n"
+                                + "{\"id\":\"" + secondId + "\",\"username\":\"adoe\",\"firstName\":null,"
+                                + "\"lastName\":null,\"email\":null,\"enabled\":true}"));
+
+        // Страница меньше page-size — следующая не запрашивается
+        verify(usersResource, times(1)).search(eq("doe"), any(), any(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void listUsers_AsJson_ShouldStreamArray() throws Exception {
+
+        UUID id = UUID.randomUUID();
+        when(usersResource.list(0, 500)).thenReturn(List.of(userRepresentation(id, "jdoe")));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(id.toString()))
+                .andExpect(jsonPath("$[0].username").value("jdoe"));
+    }
+
+    @Test
+    @WithMockUser(roles = "MODERATOR")
+    void listUsers_ShouldUseStreamTimeout() throws Exception {
+
+        when(usersResource.list(0, 500)).thenReturn(List.of());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    private UserRepresentation userRepresentation(UUID id, String username) {
+        UserRepresentation userRepresentation = new UserRepresentation();
+        userRepresentation.setId(id.toString());
+        userRepresentation.setUsername(username);
+        userRepresentation.setEnabled(true);
+        return userRepresentation;
+    }
 }
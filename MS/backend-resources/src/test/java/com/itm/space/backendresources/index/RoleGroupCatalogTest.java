@@ -0,0 +1,90 @@
+package com.itm.space.backendresources.index;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.resource.GroupsResource;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RolesResource;
+import org.keycloak.representations.idm.GroupRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.http.HttpStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoleGroupCatalogTest {
+
+    private final RealmResource realm = mock(RealmResource.class);
+    private final RolesResource roles = mock(RolesResource.class);
+    private final GroupsResource groups = mock(GroupsResource.class);
+    private RoleGroupCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        when(realm.roles()).thenReturn(roles);
+        when(realm.groups()).thenReturn(groups);
+        when(roles.list()).thenReturn(List.of(role("MODERATOR"), role("USER")));
+        GroupRepresentation staff = group("staff", "/staff");
+        staff.setSubGroups(List.of(group("moderators", "/staff/moderators"), group("team", "/staff/team")));
+        when(groups.groups()).thenReturn(List.of(staff, group("team", "/team")));
+        catalog = new RoleGroupCatalog(realm, Duration.ofMinutes(5), Duration.ZERO, Clock.systemUTC());
+    }
+
+    @Test
+    void resolve_WithoutNames_ShouldNotCallKeycloak() {
+        assertTrue(catalog.resolve(null, List.of()).isEmpty());
+
+        verify(realm, never()).roles();
+    }
+
+    @Test
+    void resolve_ShouldFindRolesAndGroupsByUniqueNameOrPath() {
+        RoleGroupCatalog.Assignments assignments =
+                catalog.resolve(List.of("MODERATOR"), List.of("moderators", "/staff/team"));
+
+        assertEquals(List.of("MODERATOR"), assignments.roles().stream().map(RoleRepresentation::getName).toList());
+        assertEquals(List.of("/staff/moderators", "/staff/team"),
+                assignments.groups().stream().map(GroupRepresentation::getPath).toList());
+    }
+
+    @Test
+    void resolve_WithAmbiguousGroupName_ShouldRejectIt() {
+        BackendResourcesException ex = assertThrows(BackendResourcesException.class,
+                () -> catalog.resolve(List.of(), List.of("team")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getHttpStatus());
+    }
+
+    @Test
+    void resolve_WithUnknownRole_ShouldReloadCatalogOnceAndReject() {
+        BackendResourcesException ex = assertThrows(BackendResourcesException.class,
+                () -> catalog.resolve(List.of("ADMIN"), List.of()));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getHttpStatus());
+        assertTrue(ex.getMessage().contains("ADMIN"));
+        verify(roles, times(2)).list();
+    }
+
+    private static RoleRepresentation role(String name) {
+        RoleRepresentation role = new RoleRepresentation();
+        role.setName(name);
+        return role;
+    }
+
+    private static GroupRepresentation group(String name, String path) {
+        GroupRepresentation group = new GroupRepresentation();
+        group.setId(path);
+        group.setName(name);
+        group.setPath(path);
+        return group;
+    }
+}
@@ -0,0 +1,107 @@
+package com.itm.space.backendresources.index;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.UsersResource;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchIndexTest {
+
+    private final RealmResource realm = mock(RealmResource.class);
+    private final UsersResource users = mock(UsersResource.class);
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(realm.users()).thenReturn(users);
+        // Индекс выключен — синхронизацию вызываем вручную
+        index = new UserSearchIndex(realm, false, 2, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void search_BeforeSync_ShouldReturnNothing() {
+        assertFalse(index.isReady());
+        assertTrue(index.search("jo", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankExactAndUsernameMatchesFirst() {
+        when(users.list(0, 2)).thenReturn(List.of(
+                user("johnny", "johnny@example.com", "Johnny", "Walker"),
+                user("jdoe", "john@example.com", "John", "Doe")));
+        when(users.list(2, 2)).thenReturn(List.of(
+                user("john", "j.smith@example.com", "John", "Smith")));
+        index.sync();
+
+        List<UserSearchIndex.Hit> hits = index.search("John", 10);
+
+        assertEquals(List.of("john", "jdoe", "johnny"), hits.stream().map(UserSearchIndex.Hit::username).toList());
+        assertEquals("Smith", hits.get(0).lastName());
+    }
+
+    @Test
+    void search_WithSeveralWords_ShouldRequireEveryWordAndApplyLimit() {
+        when(users.list(0, 2)).thenReturn(List.of(
+                user("jdoe", "john@example.com", "John", "Doe"),
+                user("jsmith", "john.smith@example.com", "John", "Smith")));
+        when(users.list(2, 2)).thenReturn(List.of());
+        index.sync();
+
+        assertEquals(List.of("jsmith"),
+                index.search("sm joh", 10).stream().map(UserSearchIndex.Hit::username).toList());
+        assertEquals(1, index.search("john", 1).size());
+        assertTrue(index.search("nobody", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankMatchesBeyondTheAlphabeticallyFirstOnes() {
+        when(users.list(0, 2)).thenReturn(List.of(
+                user("annabelle", "annabelle@example.com", "Annabelle", "Lee"),
+                user("annette", "annette@example.com", "Annette", "Moss")));
+        when(users.list(2, 2)).thenReturn(List.of(
+                user("ann", "a.zed@example.com", "Ann", "Zed")));
+        index.sync();
+
+        assertEquals(List.of("ann"), index.search("ann", 1).stream().map(UserSearchIndex.Hit::username).toList());
+    }
+
+    @Test
+    void add_ShouldMakeCreatedUserSearchableUntilNextSync() {
+        UserRepresentation jdoe = user("jdoe", "john@example.com", "John", "Doe");
+        when(users.list(0, 2)).thenReturn(List.of(jdoe));
+        index.sync();
+        UserRepresentation created = user("jsmith", "john.smith@example.com", "John", "Smith");
+
+        index.add(UUID.fromString(created.getId()), created);
+
+        assertEquals(List.of("jdoe", "jsmith"),
+                index.search("john", 10).stream().map(UserSearchIndex.Hit::username).toList());
+
+        when(users.list(0, 2)).thenReturn(List.of(jdoe, created));
+        when(users.list(2, 2)).thenReturn(List.of());
+        index.sync();
+
+        assertEquals(List.of("jdoe", "jsmith"),
+                index.search("john", 10).stream().map(UserSearchIndex.Hit::username).toList());
+    }
+
+    private UserRepresentation user(String username, String email, String firstName, String lastName) {
+        UserRepresentation user = new UserRepresentation();
+        user.setId(UUID.randomUUID().toString());
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+}
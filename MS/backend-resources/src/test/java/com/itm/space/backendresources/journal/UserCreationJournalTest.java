@@ -0,0 +1,160 @@
+package com.itm.space.backendresources.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class UserCreationJournalTest {
+    private static final int SEGMENT_SIZE = 4096;
+    // длина, CRC32, тип, trackingId, IV и тег GCM
+    private static final int RECORD_OVERHEAD = 8 + 1 + 16 + 12 + 16;
+    private static final SecretKey KEY = new SecretKeySpec(new byte[32], "AES");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recovered_AfterReopen_ShouldReturnEntriesInOrder() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        try (UserCreationJournal journal = open()) {
+            journal.append(accepted(first, "alice"));
+            journal.append(accepted(second, "bob"));
+            journal.append(completed(first));
+        }
+
+        try (UserCreationJournal journal = open()) {
+            List<UserCreationJournal.Entry> entries = journal.recovered();
+
+            assertEquals(3, entries.size());
+            assertEquals(first, entries.get(0).trackingId());
+            assertEquals("bob", new String(entries.get(1).payload(), StandardCharsets.UTF_8));
+            assertEquals(UserCreationJournal.Type.COMPLETED, entries.get(2).type());
+        }
+    }
+
+    @Test
+    void recovered_WithTornTail_ShouldStopAtLastValidRecord() throws IOException {
+        UUID trackingId = UUID.randomUUID();
+        try (UserCreationJournal journal = open()) {
+            journal.append(accepted(trackingId, "alice"));
+            journal.append(accepted(UUID.randomUUID(), "carol"));
+        }
+        // Портим последний байт второй записи, как если бы процесс упал посреди неё
+        Path segment = segments().get(0);
+        int recordSize = RECORD_OVERHEAD + "alice".length();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(recordSize * 2L - 1);
+            file.write('x');
+        }
+
+        try (UserCreationJournal journal = open()) {
+            assertEquals(List.of(trackingId),
+                    journal.recovered().stream().map(UserCreationJournal.Entry::trackingId).toList());
+        }
+    }
+
+    @Test
+    void append_WhenOldSegmentsAreCompleted_ShouldDeleteThem() throws IOException {
+        try (UserCreationJournal journal = open()) {
+            UUID trackingId = UUID.randomUUID();
+            journal.append(accepted(trackingId, "x".repeat(SEGMENT_SIZE / 2)));
+            journal.append(accepted(UUID.randomUUID(), "y".repeat(SEGMENT_SIZE / 2)));
+            assertEquals(2, segments().size());
+
+            journal.append(completed(trackingId));
+
+            assertEquals(1, segments().size());
+        }
+    }
+
+    @Test
+    void append_WithEntryLargerThanSegment_ShouldThrow() {
+        try (UserCreationJournal journal = open()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> journal.append(accepted(UUID.randomUUID(), "z".repeat(SEGMENT_SIZE))));
+        }
+    }
+
+    @Test
+    void append_ShouldNotStorePayloadInCleartext() throws IOException {
+        try (UserCreationJournal journal = open()) {
+            journal.append(accepted(UUID.randomUUID(), "{\"password\":\"s3cret-password\"}"));
+        }
+
+        String segment = new String(Files.readAllBytes(segments().get(0)), StandardCharsets.ISO_8859_1);
+
+        assertFalse(segment.contains("s3cret-password"));
+    }
+
+    @Test
+    void open_WithAnotherKey_ShouldFail() {
+        try (UserCreationJournal journal = open()) {
+            journal.append(accepted(UUID.randomUUID(), "alice"));
+        }
+        byte[] otherKey = new byte[32];
+        Arrays.fill(otherKey, (byte) 1);
+
+        assertThrows(IllegalStateException.class,
+                () -> new UserCreationJournal(tempDir, SEGMENT_SIZE, true, new SecretKeySpec(otherKey, "AES")));
+    }
+
+    @Test
+    void open_ShouldCreateJournalAccessibleOnlyToOwner() throws IOException {
+        Path directory = tempDir.resolve("journal");
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        try (UserCreationJournal journal = new UserCreationJournal(directory, SEGMENT_SIZE, true, KEY)) {
+            journal.append(accepted(UUID.randomUUID(), "alice"));
+        }
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory)));
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path segment : files.toList()) {
+                assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(segment)));
+            }
+        }
+    }
+
+    @Test
+    void open_WithDirectoryReadableByOthers_ShouldFail() throws IOException {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Files.setPosixFilePermissions(tempDir, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        assertThrows(IllegalStateException.class, this::open);
+    }
+
+    private UserCreationJournal open() {
+        return new UserCreationJournal(tempDir, SEGMENT_SIZE, true, KEY);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static UserCreationJournal.Entry accepted(UUID trackingId, String payload) {
+        return new UserCreationJournal.Entry(UserCreationJournal.Type.ACCEPTED, trackingId,
+                payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UserCreationJournal.Entry completed(UUID trackingId) {
+        return new UserCreationJournal.Entry(UserCreationJournal.Type.COMPLETED, trackingId, new byte[0]);
+    }
+}
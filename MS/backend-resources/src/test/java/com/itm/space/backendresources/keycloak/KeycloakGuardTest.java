@@ -0,0 +1,75 @@
+package com.itm.space.backendresources.keycloak;
+
+import com.itm.space.backendresources.exception.KeycloakUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeycloakGuardTest {
+    private final Bulkhead bulkhead = Bulkhead.of("keycloak", BulkheadConfig.custom()
+            .maxConcurrentCalls(1)
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+    private final KeycloakGuard guard = new KeycloakGuard(CircuitBreaker.ofDefaults("keycloak"), bulkhead,
+            Duration.ofSeconds(10), new SimpleMeterRegistry());
+
+    @Test
+    void reactiveCall_WhenBlockingCallHoldsTheLimit_ShouldBeRejected() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocking = CompletableFuture.supplyAsync(() ->
+                guard.call(KeycloakOperation.GET_REPRESENTATION, () -> {
+                    started.countDown();
+                    await(release);
+                    return "blocking";
+                }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        assertThrows(KeycloakUnavailableException.class,
+                () -> guard.call(KeycloakOperation.GET_REPRESENTATION, Mono.just("reactive")).block());
+
+        release.countDown();
+        assertEquals("blocking", blocking.get(1, TimeUnit.SECONDS));
+        assertEquals("reactive", guard.call(KeycloakOperation.GET_REPRESENTATION, Mono.just("reactive")).block());
+        assertEquals(1, bulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    @Test
+    void reactiveCall_WhenCancelled_ShouldReleaseThePermission() throws InterruptedException {
+        Disposable subscription = guard.call(KeycloakOperation.GET_REPRESENTATION, Mono.never()).subscribe();
+        awaitAvailable(0);
+
+        subscription.dispose();
+
+        awaitAvailable(1);
+    }
+
+    private void awaitAvailable(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (bulkhead.getMetrics().getAvailableConcurrentCalls() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, bulkhead.getMetrics().getAvailableConcurrentCalls());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.itm.space.backendresources.keycloak;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.representations.AccessTokenResponse;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ServiceAccountTokenManagerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private Invocation.Builder tokenRequest;
+    private ServiceAccountTokenManager tokenManager;
+
+    @BeforeEach
+    void setUp() {
+        WebTarget tokenEndpoint = mock(WebTarget.class);
+        tokenRequest = mock(Invocation.Builder.class);
+        when(tokenEndpoint.request(any(MediaType.class))).thenReturn(tokenRequest);
+        tokenManager = new ServiceAccountTokenManager(tokenEndpoint, "backend-resources", "secret",
+                Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tokenManager.close();
+    }
+
+    @Test
+    void getAccessToken_ShouldFetchOnceAndReuseToken() {
+        when(tokenRequest.post(any(Entity.class), eq(AccessTokenResponse.class)))
+                .thenReturn(tokenResponse("first", 300));
+
+        assertEquals("first", tokenManager.getAccessToken());
+        assertEquals("first", tokenManager.getAccessToken());
+
+        verify(tokenRequest, times(1)).post(any(Entity.class), eq(AccessTokenResponse.class));
+        assertEquals(1, meterRegistry.get("keycloak.token.refresh").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void getAccessToken_WhenRefreshIsDue_ShouldServeCurrentTokenWhileRefreshing() throws Exception {
+        CountDownLatch refreshStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(tokenRequest.post(any(Entity.class), eq(AccessTokenResponse.class)))
+                .thenReturn(tokenResponse("first", 2))
+                .thenAnswer(invocation -> {
+                    refreshStarted.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return tokenResponse("second", 300);
+                });
+
+        assertEquals("first", tokenManager.getAccessToken());
+        // Токен живёт 2 секунды, обновление положено начать на их середине
+        Thread.sleep(1_100);
+
+        assertEquals("first", tokenManager.getAccessToken());
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+        assertEquals("first", tokenManager.getAccessToken());
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!"second".equals(tokenManager.getAccessToken()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("second", tokenManager.getAccessToken());
+        verify(tokenRequest, times(2)).post(any(Entity.class), eq(AccessTokenResponse.class));
+    }
+
+    private static AccessTokenResponse tokenResponse(String token, long expiresIn) {
+        AccessTokenResponse response = new AccessTokenResponse();
+        response.setToken(token);
+        response.setExpiresIn(expiresIn);
+        return response;
+    }
+}
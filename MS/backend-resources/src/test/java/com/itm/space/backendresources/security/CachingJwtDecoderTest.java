@@ -0,0 +1,54 @@
+package com.itm.space.backendresources.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingJwtDecoderTest {
+
+    private final JwtDecoder delegate = mock(JwtDecoder.class);
+    private final Instant now = Instant.parse("2024-01-01T10:00:00Z");
+    private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, Clock.fixed(now, ZoneOffset.UTC));
+
+    @Test
+    void decode_SameToken_ShouldVerifyOnce() {
+        Jwt jwt = jwt(now.plusSeconds(300));
+        when(delegate.decode("token")).thenReturn(jwt);
+
+        assertSame(jwt, decoder.decode("token"));
+        assertSame(jwt, decoder.decode("token"));
+
+        verify(delegate, times(1)).decode("token");
+    }
+
+    @Test
+    void decode_ExpiredToken_ShouldNotBeCached() {
+        when(delegate.decode("token")).thenReturn(jwt(now.minusSeconds(1)));
+
+        decoder.decode("token");
+        decoder.decode("token");
+
+        // Просроченный токен каждый раз уходит на проверку в делегат
+        verify(delegate, times(2)).decode("token");
+        assertEquals(0, decoder.getCache().estimatedSize());
+    }
+
+    private Jwt jwt(Instant expiresAt) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user")
+                .issuedAt(expiresAt.minusSeconds(600))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
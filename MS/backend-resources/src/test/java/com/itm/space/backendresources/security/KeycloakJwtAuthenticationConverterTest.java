@@ -0,0 +1,45 @@
+package com.itm.space.backendresources.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeycloakJwtAuthenticationConverterTest {
+
+    private final KeycloakJwtAuthenticationConverter converter = new KeycloakJwtAuthenticationConverter(16);
+
+    @Test
+    void convert_ShouldMapRealmRolesAndShareAuthorities() {
+        AbstractAuthenticationToken first = converter.convert(jwt("alice", List.of("MODERATOR", "USER")));
+        AbstractAuthenticationToken second = converter.convert(jwt("bob", List.of("MODERATOR", "USER")));
+
+        assertEquals("alice", first.getName());
+        assertEquals(List.of("ROLE_MODERATOR", "ROLE_USER"),
+                first.getAuthorities().stream().map(Object::toString).toList());
+        // Одинаковые наборы ролей дают одни и те же экземпляры authorities
+        assertSame(first.getAuthorities().iterator().next(), second.getAuthorities().iterator().next());
+    }
+
+    @Test
+    void convert_WithoutRealmAccess_ShouldReturnNoAuthorities() {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject("alice")
+                .expiresAt(Instant.now().plusSeconds(60)).build();
+
+        assertTrue(converter.convert(jwt).getAuthorities().isEmpty());
+    }
+
+    private Jwt jwt(String subject, List<String> roles) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject(subject)
+                .claim("realm_access", Map.of("roles", roles))
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+package com.itm.space.backendresources.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentJwkSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private PersistentJwkSource jwkSource;
+
+    @AfterEach
+    void tearDown() {
+        if (jwkSource != null) {
+            jwkSource.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void get_WithCachedFileAndKeycloakDown_ShouldServeKeysFromFile() throws Exception {
+        RSAKey key = rsaKey("cached");
+        Path cacheFile = tempDir.resolve("jwks.json");
+        Files.writeString(cacheFile, new JWKSet(key).toString(true));
+
+        // Порт 1 закрыт — фоновые обновления падают, но ключи из файла доступны сразу
+        jwkSource = source(URI.create("http://127.0.0.1:1/certs"), cacheFile);
+
+        assertEquals(1, jwkSource.get(selector("cached"), null).size());
+    }
+
+    @Test
+    void refresh_ShouldPersistFetchedKeysForNextStart() throws Exception {
+        RSAKey key = rsaKey("fresh");
+        URI jwkSetUri = serve(new JWKSet(key).toString(true));
+        Path cacheFile = tempDir.resolve("nested").resolve("jwks.json");
+
+        jwkSource = source(jwkSetUri, cacheFile);
+        jwkSource.refresh();
+
+        assertEquals(1, jwkSource.get(selector("fresh"), null).size());
+        assertEquals("fresh", JWKSet.parse(Files.readString(cacheFile)).getKeys().get(0).getKeyID());
+    }
+
+    private PersistentJwkSource source(URI jwkSetUri, Path cacheFile) {
+        return new PersistentJwkSource(jwkSetUri, cacheFile, Duration.ofMinutes(10), Duration.ofMinutes(1),
+                Duration.ofSeconds(1), Clock.systemUTC(), new SimpleMeterRegistry());
+    }
+
+    private URI serve(String body) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        });
+        server.start();
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/certs");
+    }
+
+    private static RSAKey rsaKey(String keyId) throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(keyId).generate();
+    }
+
+    private static JWKSelector selector(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+}
@@ -0,0 +1,85 @@
+package com.itm.space.backendresources.service;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse;
+import com.itm.space.backendresources.api.response.UserCreationStatusResponse.State;
+import com.itm.space.backendresources.journal.UserCreationJournal;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.keycloak.admin.client.resource.UsersResource;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+class AsyncUserCreationServiceImplTest {
+    private final UserService userService = mock(UserService.class);
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+
+    @TempDir
+    Path tempDir;
+
+    private UserCreationJournal journal;
+    private AsyncUserCreationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        journal = new UserCreationJournal(tempDir, 4096, false, new SecretKeySpec(new byte[32], "AES"));
+        // Один обработчик: обе заявки попадают в одну очередь
+        service = new AsyncUserCreationServiceImpl(journal, userService, mock(UsersResource.class),
+                mock(KeycloakGuard.class), objectMapper, new SimpleMeterRegistry(), 1, 10, 100, 3,
+                Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofHours(1), 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.close();
+        journal.close();
+    }
+
+    @Test
+    void submit_WhenJournalingOutcomeFails_ShouldKeepWorkerAlive() throws Exception {
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+        when(userService.createUser(any(UserRequest.class))).thenReturn(firstId, secondId);
+        JsonMappingException failure = new JsonMappingException(null, "Serialization failed");
+        when(objectMapper.writeValueAsBytes(any(UserCreationStatusResponse.class))).thenThrow(failure);
+        doCallRealMethod().when(objectMapper).writeValueAsBytes(any(AsyncUserCreationServiceImpl.AcceptedRequest.class));
+
+        UserCreationStatusResponse first = service.submit(userRequest("alice"));
+        UserCreationStatusResponse second = service.submit(userRequest("alice"));
+
+        assertEquals(firstId, awaitOutcome(first.getTrackingId()).getUserId());
+        UserCreationStatusResponse outcome = awaitOutcome(second.getTrackingId());
+        assertEquals(State.CREATED, outcome.getState());
+        assertEquals(secondId, outcome.getUserId());
+    }
+
+    private UserCreationStatusResponse awaitOutcome(UUID trackingId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        UserCreationStatusResponse status = service.getStatus(trackingId);
+        while (status.getState() == State.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = service.getStatus(trackingId);
+        }
+        return status;
+    }
+
+    private static UserRequest userRequest(String username) {
+        return new UserRequest(username, username + "@example.com", "password123", "John", "Doe");
+    }
+}
@@ -0,0 +1,58 @@
+package com.itm.space.backendresources.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrefetchingPageIteratorTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void iterator_ShouldReturnAllPagesInOrder() {
+        List<Integer> source = IntStream.range(0, 7).boxed().toList();
+        List<Integer> result = new ArrayList<>();
+
+        try (PrefetchingPageIterator<Integer> iterator = new PrefetchingPageIterator<>(
+                (first, max) -> source.subList(Math.min(first, source.size()), Math.min(first + max, source.size())),
+                3, executor)) {
+            iterator.forEachRemaining(result::add);
+        }
+
+        assertEquals(source, result);
+    }
+
+    @Test
+    void close_ShouldInterruptRunningPageFetch() throws InterruptedException {
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchInterrupted = new CountDownLatch(1);
+        PrefetchingPageIterator<Integer> iterator = new PrefetchingPageIterator<>((first, max) -> {
+            fetchStarted.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                fetchInterrupted.countDown();
+            }
+            return List.of();
+        }, 3, executor);
+        assertTrue(fetchStarted.await(1, TimeUnit.SECONDS));
+
+        iterator.close();
+
+        assertTrue(fetchInterrupted.await(1, TimeUnit.SECONDS));
+    }
+}
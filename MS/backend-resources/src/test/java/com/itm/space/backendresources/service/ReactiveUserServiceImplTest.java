@@ -0,0 +1,167 @@
+package com.itm.space.backendresources.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itm.space.backendresources.api.request.UserRequest;
+import com.itm.space.backendresources.api.response.UserResponse;
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
+import com.itm.space.backendresources.mapper.UserMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveUserServiceImplTest {
+    private static final UUID USER_ID = UUID.fromString("6f1c3a52-7d0e-4c43-9b5e-2a4f1f0b8d11");
+
+    private HttpServer server;
+    private ReactiveUserServiceImpl userService;
+    private Cache<UUID, UserResponse> userResponseCache;
+    private Cache<UUID, UserResponse> staleUserResponseCache;
+    private MembershipIndex membershipIndex;
+    private final AtomicInteger representationCalls = new AtomicInteger();
+    private volatile int representationStatus = 200;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String users = "/admin/realms/test-realm/users";
+        server.createContext(users, exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if ("POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Location", "http://keycloak" + users + "/" + USER_ID);
+                exchange.sendResponseHeaders(201, -1);
+                exchange.close();
+            } else if (path.endsWith("/role-mappings/realm")) {
+                respond(exchange, 200, "[{\"name\":\"MODERATOR\"}]");
+            } else if (path.endsWith("/groups")) {
+                respond(exchange, 200, "[{\"name\":\"Moderators\"}]");
+            } else {
+                representationCalls.incrementAndGet();
+                respond(exchange, representationStatus,
+                        "{\"id\":\"" + USER_ID + "\",\"firstName\":\"John\",\"lastName\":\"Doe\","
+                                + "\"email\":\"john@example.com\"}");
+            }
+        });
+        server.start();
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/admin/realms/test-realm")
+                .build();
+        userResponseCache = Caffeine.newBuilder().build();
+        staleUserResponseCache = Caffeine.newBuilder().build();
+        membershipIndex = mock(MembershipIndex.class);
+        when(membershipIndex.find(any())).thenReturn(Optional.empty());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        userService = new ReactiveUserServiceImpl(webClient, Mappers.getMapper(UserMapper.class), userResponseCache,
+                staleUserResponseCache, membershipIndex,
+                new KeycloakGuard(CircuitBreaker.ofDefaults("keycloak"), Bulkhead.ofDefaults("keycloak"),
+                        Duration.ofSeconds(10), meterRegistry),
+                mock(UserSearchIndex.class));
+        setField("lookupTimeout", Duration.ofSeconds(5));
+        setField("serveStale", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void createUser_ShouldReturnIdFromLocationHeader() {
+        UUID id = userService.createUser(new UserRequest("testuser", "test@example.com", "password123",
+                "John", "Doe")).block();
+
+        assertEquals(USER_ID, id);
+    }
+
+    @Test
+    void getUserById_ShouldCombineRepresentationRolesAndGroups() {
+        UserResponse response = userService.getUserById(USER_ID).block();
+
+        assertNotNull(response);
+        assertEquals("John", response.getFirstName());
+        assertEquals(List.of("MODERATOR"), response.getRoles());
+        assertEquals(List.of("Moderators"), response.getGroups());
+        assertSame(response, userResponseCache.getIfPresent(USER_ID));
+    }
+
+    @Test
+    void getUserById_WithIndexedMembership_ShouldFetchRepresentationOnly() {
+        when(membershipIndex.find(USER_ID))
+                .thenReturn(Optional.of(new MembershipIndex.Membership(List.of("role-1"), List.of("group-1"))));
+
+        UserResponse response = userService.getUserById(USER_ID).block();
+
+        assertNotNull(response);
+        assertEquals(List.of("role-1"), response.getRoles());
+        assertEquals(1, representationCalls.get());
+    }
+
+    @Test
+    void getUserById_WithUnknownUser_ShouldThrowNotFound() {
+        representationStatus = 404;
+
+        BackendResourcesException ex = assertThrows(BackendResourcesException.class,
+                () -> userService.getUserById(USER_ID).block());
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getHttpStatus());
+    }
+
+    @Test
+    void getUserById_WithKeycloakError_ShouldServeStaleCopy() {
+        userService.getUserById(USER_ID).block();
+        userResponseCache.invalidateAll();
+        representationStatus = 500;
+
+        UserResponse response = userService.getUserById(USER_ID).block();
+
+        assertNotNull(response);
+        assertTrue(response.isStale());
+        assertEquals("John", response.getFirstName());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private void setField(String name, Object value) {
+        try {
+            var field = ReactiveUserServiceImpl.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(userService, value);
+        } catch (Exception e) {
+            fail("Не удалось установить " + name + ": " + e.getMessage());
+        }
+    }
+}
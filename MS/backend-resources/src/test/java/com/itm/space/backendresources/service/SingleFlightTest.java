@@ -0,0 +1,106 @@
+package com.itm.space.backendresources.service;
+
+import com.itm.space.backendresources.exception.BackendResourcesException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_ConcurrentCallsForSameKey_ShouldLoadOnce() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", true, Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            await(release);
+            return "value";
+        }));
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        // Даём последователям время присоединиться к уже идущей загрузке
+        while (meterRegistry.get("single.flight.coalesced").counter().count() < 5) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0.0, meterRegistry.get("single.flight.in.flight").gauge().value());
+    }
+
+    @Test
+    void execute_WhenLoaderFails_ShouldPropagateAndAllowRetry() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", true, Duration.ofSeconds(5), meterRegistry);
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("Keycloak недоступен");
+        }));
+
+        assertEquals("value", singleFlight.execute("key", () -> "value"));
+    }
+
+    @Test
+    void execute_WhenLeaderIsTooSlow_ShouldTimeOutFollower() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", true, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> singleFlight.execute("key", () -> {
+            loaderStarted.countDown();
+            await(release);
+            return "value";
+        }));
+        assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+        BackendResourcesException exception = assertThrows(BackendResourcesException.class,
+                () -> singleFlight.execute("key", () -> "other"));
+        release.countDown();
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exception.getHttpStatus());
+        assertEquals(1.0, meterRegistry.get("single.flight.wait.timeouts").counter().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
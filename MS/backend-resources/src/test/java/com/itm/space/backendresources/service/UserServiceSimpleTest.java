@@ -1,13 +1,25 @@
 package com.itm.space.backendresources.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.itm.space.backendresources.api.request.UserField;
 import com.itm.space.backendresources.api.request.UserRequest;
 import com.itm.space.backendresources.api.response.UserResponse;
 import com.itm.space.backendresources.exception.BackendResourcesException;
+import com.itm.space.backendresources.exception.KeycloakUnavailableException;
+import com.itm.space.backendresources.exception.OrphanedUserException;
+import com.itm.space.backendresources.index.MembershipIndex;
+import com.itm.space.backendresources.index.RoleGroupCatalog;
+import com.itm.space.backendresources.index.UserSearchIndex;
+import com.itm.space.backendresources.keycloak.KeycloakGuard;
 import com.itm.space.backendresources.mapper.UserMapper;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleScopeResource;
 import org.keycloak.admin.client.resource.UserResource;
 import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.GroupRepresentation;
@@ -17,13 +29,24 @@ import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,18 +59,23 @@ import static org.mockito.Mockito.*;
 class UserServiceSimpleTest {
 
     @MockBean
-    private Keycloak keycloakClient;
+    private UsersResource usersResource;
 
     @MockBean
     private UserMapper userMapper;
 
     private UserService userService;
 
-    private RealmResource realmResource;
-    private UsersResource usersResource;
     private UserResource userResource;
     private org.keycloak.admin.client.resource.RoleMappingResource roleMappingResource;
     private MappingsRepresentation mappingsRepresentation;
+    private ExecutorService lookupExecutor;
+    private Cache<UUID, UserResponse> userResponseCache;
+    private MembershipIndex membershipIndex;
+    private CircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private Cache<UUID, UserResponse> staleUserResponseCache;
+    private RoleGroupCatalog roleGroupCatalog;
 
     @Value("${keycloak.realm}")
     private String realm;
@@ -55,29 +83,37 @@ class UserServiceSimpleTest {
     @BeforeEach
     void setUp() {
 
-        realmResource = mock(RealmResource.class);
-        usersResource = mock(UsersResource.class);
         userResource = mock(UserResource.class);
         roleMappingResource = mock(org.keycloak.admin.client.resource.RoleMappingResource.class);
         mappingsRepresentation = mock(MappingsRepresentation.class);
 
 
-        when(keycloakClient.realm(realm)).thenReturn(realmResource);
-        when(realmResource.users()).thenReturn(usersResource);
         when(usersResource.get(any(String.class))).thenReturn(userResource);
         when(userResource.roles()).thenReturn(roleMappingResource);
         when(roleMappingResource.getAll()).thenReturn(mappingsRepresentation);
 
 
-        userService = new UserServiceImpl(keycloakClient, userMapper);
+        lookupExecutor = Executors.newFixedThreadPool(3);
+        userResponseCache = Caffeine.newBuilder().build();
+        membershipIndex = mock(MembershipIndex.class);
+        circuitBreaker = CircuitBreaker.ofDefaults("keycloak");
+        meterRegistry = new SimpleMeterRegistry();
+        staleUserResponseCache = Caffeine.newBuilder().build();
+        roleGroupCatalog = mock(RoleGroupCatalog.class);
+        userService = new UserServiceImpl(usersResource, userMapper, lookupExecutor, userResponseCache,
+                new SingleFlight<>("users", true, Duration.ofSeconds(5), meterRegistry),
+                membershipIndex,
+                new KeycloakGuard(circuitBreaker, Bulkhead.ofDefaults("keycloak"), Duration.ofSeconds(10),
+                        meterRegistry),
+                staleUserResponseCache, roleGroupCatalog, mock(UserSearchIndex.class));
+
+        setField("lookupTimeout", Duration.ofSeconds(5));
+        setField("serveStale", true);
+    }
 
-        try {
-            var field = UserServiceImpl.class.getDeclaredField("realm");
-            field.setAccessible(true);
-            field.set(userService, realm);
-        } catch (Exception e) {
-            fail("Не удалось установить realm: " + e.getMessage());
-        }
+    @AfterEach
+    void tearDown() {
+        lookupExecutor.shutdownNow();
     }
 
     @Test
@@ -133,6 +169,100 @@ class UserServiceSimpleTest {
         assertNotNull(exception.getMessage());
     }
 
+    @Test
+    void createUser_WithRolesAndGroups_ShouldAssignThemAfterCreation() {
+
+        UUID userId = UUID.randomUUID();
+        UserRequest userRequest = createUserRequest("testuser", "test@example.com", "password123", "John", "Doe");
+        userRequest.setRoles(List.of("MODERATOR"));
+        userRequest.setGroups(List.of("Moderators", "Support"));
+        List<RoleRepresentation> roles = List.of(createRoleRepresentation("MODERATOR"));
+        GroupRepresentation moderators = createGroupRepresentation("Moderators");
+        moderators.setId("moderators-id");
+        GroupRepresentation support = createGroupRepresentation("Support");
+        support.setId("support-id");
+        RoleScopeResource realmLevel = mock(RoleScopeResource.class);
+
+        when(roleGroupCatalog.resolve(List.of("MODERATOR"), List.of("Moderators", "Support")))
+                .thenReturn(new RoleGroupCatalog.Assignments(roles, List.of(moderators, support)));
+        Response created = createdResponse(userId);
+        when(usersResource.create(any(UserRepresentation.class))).thenReturn(created);
+        when(roleMappingResource.realmLevel()).thenReturn(realmLevel);
+
+        assertEquals(userId, userService.createUser(userRequest));
+
+        verify(realmLevel).add(roles);
+        verify(userResource).joinGroup("moderators-id");
+        verify(userResource).joinGroup("support-id");
+        verify(usersResource, never()).delete(any());
+    }
+
+    @Test
+    void createUser_WhenGroupJoinFails_ShouldDeleteCreatedUser() {
+
+        UUID userId = UUID.randomUUID();
+        UserRequest userRequest = createUserRequest("testuser", "test@example.com", "password123", "John", "Doe");
+        userRequest.setGroups(List.of("Moderators"));
+        GroupRepresentation moderators = createGroupRepresentation("Moderators");
+        moderators.setId("moderators-id");
+        Response deleted = mock(Response.class);
+        when(deleted.getStatus()).thenReturn(204);
+
+        when(roleGroupCatalog.resolve(null, List.of("Moderators")))
+                .thenReturn(new RoleGroupCatalog.Assignments(List.of(), List.of(moderators)));
+        Response created = createdResponse(userId);
+        when(usersResource.create(any(UserRepresentation.class))).thenReturn(created);
+        doThrow(new ProcessingException("Connection reset")).when(userResource).joinGroup("moderators-id");
+        when(usersResource.delete(userId.toString())).thenReturn(deleted);
+
+        BackendResourcesException exception = assertThrows(
+                BackendResourcesException.class,
+                () -> userService.createUser(userRequest)
+        );
+
+        assertTrue(exception.getMessage().contains("Connection reset"));
+        verify(usersResource).delete(userId.toString());
+    }
+
+    @Test
+    void createUser_WhenRollbackFails_ShouldReportOrphanedUser() {
+
+        UUID userId = UUID.randomUUID();
+        UserRequest userRequest = createUserRequest("testuser", "test@example.com", "password123", "John", "Doe");
+        userRequest.setGroups(List.of("Moderators"));
+        GroupRepresentation moderators = createGroupRepresentation("Moderators");
+        moderators.setId("moderators-id");
+
+        when(roleGroupCatalog.resolve(null, List.of("Moderators")))
+                .thenReturn(new RoleGroupCatalog.Assignments(List.of(), List.of(moderators)));
+        Response created = createdResponse(userId);
+        when(usersResource.create(any(UserRepresentation.class))).thenReturn(created);
+        doThrow(new ProcessingException("Connection reset")).when(userResource).joinGroup("moderators-id");
+        when(usersResource.delete(userId.toString())).thenThrow(new ProcessingException("Connection refused"));
+
+        OrphanedUserException exception = assertThrows(
+                OrphanedUserException.class,
+                () -> userService.createUser(userRequest)
+        );
+
+        assertEquals(userId, exception.getUserId());
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, exception.getHttpStatus());
+        assertTrue(exception.getMessage().contains(userId.toString()));
+    }
+
+    @Test
+    void createUser_WithUnknownRole_ShouldNotCreateUser() {
+
+        UserRequest userRequest = createUserRequest("testuser", "test@example.com", "password123", "John", "Doe");
+        userRequest.setRoles(List.of("ADMIN"));
+        when(roleGroupCatalog.resolve(List.of("ADMIN"), null))
+                .thenThrow(new BackendResourcesException("Unknown role \"ADMIN\"", HttpStatus.BAD_REQUEST));
+
+        assertThrows(BackendResourcesException.class, () -> userService.createUser(userRequest));
+
+        verify(usersResource, never()).create(any(UserRepresentation.class));
+    }
+
     @Test
     void getUserById_WithValidId_ShouldReturnUserResponse() {
 
@@ -199,6 +329,307 @@ class UserServiceSimpleTest {
     }
 
 
+    @Test
+    void getUserById_WhenUserIsMissing_ShouldThrowNotFound() {
+
+        Response notFoundResponse = mock(Response.class);
+        when(notFoundResponse.getStatus()).thenReturn(404);
+        when(notFoundResponse.getStatusInfo()).thenReturn(Response.Status.NOT_FOUND);
+        WebApplicationException notFound = new WebApplicationException(notFoundResponse);
+        when(userResource.toRepresentation()).thenThrow(notFound);
+
+        BackendResourcesException exception = assertThrows(
+                BackendResourcesException.class,
+                () -> userService.getUserById(UUID.randomUUID())
+        );
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getHttpStatus());
+    }
+
+    @Test
+    void getUserById_CalledTwice_ShouldBeServedFromCache() {
+
+        UUID userId = UUID.randomUUID();
+        UserRepresentation userRepresentation = new UserRepresentation();
+        List<RoleRepresentation> roles = List.of(createRoleRepresentation("ROLE_MODERATOR"));
+        List<GroupRepresentation> groups = List.of(createGroupRepresentation("Moderators"));
+        UserResponse expectedResponse = createUserResponse(
+                "John", "Doe", "test@example.com", List.of("ROLE_MODERATOR"), List.of("Moderators"));
+
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(mappingsRepresentation.getRealmMappings()).thenReturn(roles);
+        when(userResource.groups()).thenReturn(groups);
+        when(userMapper.userRepresentationToUserResponse(userRepresentation, roles, groups))
+                .thenReturn(expectedResponse);
+
+        assertEquals(expectedResponse, userService.getUserById(userId));
+        assertEquals(expectedResponse, userService.getUserById(userId));
+
+        verify(userResource, times(1)).toRepresentation();
+        verify(userResource, times(1)).groups();
+    }
+
+    @Test
+    void createUser_ShouldEvictCreatedUserFromCache() {
+
+        UUID userId = UUID.randomUUID();
+        userResponseCache.put(userId, createUserResponse("John", "Doe", "test@example.com", List.of(), List.of()));
+
+        Response mockResponse = mock(Response.class);
+        when(mockResponse.getStatusInfo()).thenReturn(Response.Status.CREATED);
+        when(mockResponse.getLocation())
+                .thenReturn(URI.create("http://localhost/admin/realms/" + realm + "/users/" + userId));
+        when(usersResource.create(any(UserRepresentation.class))).thenReturn(mockResponse);
+
+        userService.createUser(createUserRequest("testuser", "test@example.com", "password123", "John", "Doe"));
+
+        assertNull(userResponseCache.getIfPresent(userId));
+    }
+
+    @Test
+    void getUserById_WhenMembershipIsIndexed_ShouldFetchOnlyRepresentation() {
+
+        UUID userId = UUID.randomUUID();
+        UserRepresentation userRepresentation = new UserRepresentation();
+        UserResponse expectedResponse = createUserResponse(
+                "John", "Doe", "test@example.com", List.of("MODERATOR"), List.of("Moderators"));
+
+        when(membershipIndex.find(userId))
+                .thenReturn(Optional.of(new MembershipIndex.Membership(List.of("MODERATOR"), List.of("Moderators"))));
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(userMapper.toUserResponse(userRepresentation, List.of("MODERATOR"), List.of("Moderators")))
+                .thenReturn(expectedResponse);
+
+        assertEquals(expectedResponse, userService.getUserById(userId));
+
+        verify(userResource).toRepresentation();
+        verify(userResource, never()).roles();
+        verify(userResource, never()).groups();
+    }
+
+    @Test
+    void getUserById_InConcurrentMode_ShouldReturnUserResponse() {
+        setField("concurrentLookup", true);
+        UUID userId = UUID.randomUUID();
+
+        UserRepresentation userRepresentation = new UserRepresentation();
+        userRepresentation.setFirstName("John");
+        List<RoleRepresentation> roles = List.of(createRoleRepresentation("ROLE_MODERATOR"));
+        List<GroupRepresentation> groups = List.of(createGroupRepresentation("Moderators"));
+        UserResponse expectedResponse = createUserResponse(
+                "John", null, null, List.of("ROLE_MODERATOR"), List.of("Moderators"));
+
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(mappingsRepresentation.getRealmMappings()).thenReturn(roles);
+        when(userResource.groups()).thenReturn(groups);
+        when(userMapper.userRepresentationToUserResponse(userRepresentation, roles, groups))
+                .thenReturn(expectedResponse);
+
+        assertEquals(expectedResponse, userService.getUserById(userId));
+
+        verify(userResource).toRepresentation();
+        verify(mappingsRepresentation).getRealmMappings();
+        verify(userResource).groups();
+    }
+
+    @Test
+    void getUserById_InConcurrentMode_WithError_ShouldThrowBackendResourcesException() {
+        setField("concurrentLookup", true);
+        UUID userId = UUID.randomUUID();
+
+        // Группы «зависают», но ошибка получения пользователя должна вернуться сразу, не дожидаясь таймаута
+        when(userResource.toRepresentation()).thenThrow(new RuntimeException("Пользователь не найден"));
+        when(userResource.groups()).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return List.of();
+        });
+
+        long start = System.nanoTime();
+        BackendResourcesException exception = assertThrows(
+                BackendResourcesException.class,
+                () -> userService.getUserById(userId)
+        );
+
+        assertTrue(exception.getMessage().contains("Пользователь не найден"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(5)) < 0);
+        verify(userMapper, never()).userRepresentationToUserResponse(any(), any(), any());
+    }
+
+    @Test
+    void getUserById_InConcurrentMode_WithError_ShouldInterruptRemainingCalls() throws InterruptedException {
+        setField("concurrentLookup", true);
+        UUID userId = UUID.randomUUID();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        when(userResource.toRepresentation()).thenThrow(new RuntimeException("Пользователь не найден"));
+        when(userResource.groups()).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+                throw ex;
+            }
+            return List.of();
+        });
+
+        assertThrows(BackendResourcesException.class, () -> userService.getUserById(userId));
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void getUserById_InConcurrentMode_WhenDeadlineExceeded_ShouldReturnGatewayTimeout() {
+        setField("concurrentLookup", true);
+        setField("lookupTimeout", Duration.ofMillis(100));
+        UUID userId = UUID.randomUUID();
+
+        when(userResource.toRepresentation()).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return new UserRepresentation();
+        });
+
+        BackendResourcesException exception = assertThrows(
+                BackendResourcesException.class,
+                () -> userService.getUserById(userId)
+        );
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exception.getHttpStatus());
+    }
+
+    @Test
+    void getUserById_WhenCircuitBreakerIsOpen_ShouldFailFastWithServiceUnavailable() {
+        circuitBreaker.transitionToForcedOpenState();
+
+        KeycloakUnavailableException exception = assertThrows(
+                KeycloakUnavailableException.class,
+                () -> userService.getUserById(UUID.randomUUID())
+        );
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getHttpStatus());
+        verify(userResource, never()).toRepresentation();
+    }
+
+    @Test
+    void getUserById_WhenKeycloakFailsAfterSuccessfulRead_ShouldServeStaleResponse() {
+
+        UUID userId = UUID.randomUUID();
+        UserRepresentation userRepresentation = new UserRepresentation();
+        UserResponse expectedResponse = createUserResponse(
+                "John", "Doe", "test@example.com", List.of("MODERATOR"), List.of());
+
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(mappingsRepresentation.getRealmMappings()).thenReturn(List.of());
+        when(userResource.groups()).thenReturn(List.of());
+        when(userMapper.userRepresentationToUserResponse(any(), any(), any())).thenReturn(expectedResponse);
+        userService.getUserById(userId);
+
+        // Свежий кеш истёк, Keycloak лежит — отдаём последний известный ответ с пометкой stale
+        userResponseCache.invalidateAll();
+        when(userResource.toRepresentation()).thenThrow(new ProcessingException("Connection refused"));
+
+        UserResponse stale = userService.getUserById(userId);
+
+        assertTrue(stale.isStale());
+        assertEquals("John", stale.getFirstName());
+        assertFalse(expectedResponse.isStale());
+    }
+
+    @Test
+    void getUserById_ShouldTimeEveryKeycloakCallByOperationAndStatus() {
+
+        Response notFoundResponse = mock(Response.class);
+        when(notFoundResponse.getStatus()).thenReturn(404);
+        when(notFoundResponse.getStatusInfo()).thenReturn(Response.Status.NOT_FOUND);
+        WebApplicationException notFound = new WebApplicationException(notFoundResponse);
+        when(userResource.toRepresentation()).thenThrow(notFound);
+
+        assertThrows(BackendResourcesException.class, () -> userService.getUserById(UUID.randomUUID()));
+
+        assertEquals(1, meterRegistry.get("keycloak.admin.requests")
+                .tag("operation", "get_representation")
+                .tag("outcome", "client_error")
+                .tag("status", "404")
+                .timer()
+                .count());
+    }
+
+    @Test
+    void getUserByIdWithFields_WhenOnlyProfileRequested_ShouldFetchOnlyRepresentation() {
+
+        UUID userId = UUID.randomUUID();
+        UserRepresentation userRepresentation = new UserRepresentation();
+        userRepresentation.setFirstName("John");
+        userRepresentation.setEmail("test@example.com");
+        Set<UserField> fields = EnumSet.of(UserField.FIRST_NAME, UserField.EMAIL);
+
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(userMapper.toUserResponse(userRepresentation, null, null, fields)).thenCallRealMethod();
+
+        UserResponse response = userService.getUserById(userId, fields);
+
+        assertEquals("John", response.getFirstName());
+        assertEquals("test@example.com", response.getEmail());
+        assertNull(response.getRoles());
+        verify(userResource).toRepresentation();
+        verify(userResource, never()).roles();
+        verify(userResource, never()).groups();
+        verify(membershipIndex, never()).find(any());
+    }
+
+    @Test
+    void getUserByIdWithFields_WhenOnlyGroupsRequested_ShouldSkipRepresentation() {
+
+        UUID userId = UUID.randomUUID();
+        List<GroupRepresentation> groups = List.of(createGroupRepresentation("Moderators"));
+        Set<UserField> fields = EnumSet.of(UserField.GROUPS);
+
+        when(userResource.groups()).thenReturn(groups);
+        when(userMapper.mapGroupRepresentationToString(groups)).thenCallRealMethod();
+        when(userMapper.toUserResponse(null, null, List.of("Moderators"), fields)).thenCallRealMethod();
+
+        UserResponse response = userService.getUserById(userId, fields);
+
+        assertEquals(List.of("Moderators"), response.getGroups());
+        verify(userResource, never()).toRepresentation();
+        verify(userResource, never()).roles();
+    }
+
+    @Test
+    void getUserByIdWithFields_WhenSeveralCallsNeeded_ShouldLoadFullUserAndSelectFields() {
+
+        UUID userId = UUID.randomUUID();
+        UserRepresentation userRepresentation = new UserRepresentation();
+        List<RoleRepresentation> roles = List.of(createRoleRepresentation("ROLE_MODERATOR"));
+        List<GroupRepresentation> groups = List.of(createGroupRepresentation("Moderators"));
+        UserResponse fullResponse = createUserResponse(
+                "John", "Doe", "test@example.com", List.of("ROLE_MODERATOR"), List.of("Moderators"));
+        Set<UserField> fields = EnumSet.of(UserField.LAST_NAME, UserField.ROLES);
+
+        when(userResource.toRepresentation()).thenReturn(userRepresentation);
+        when(mappingsRepresentation.getRealmMappings()).thenReturn(roles);
+        when(userResource.groups()).thenReturn(groups);
+        when(userMapper.userRepresentationToUserResponse(userRepresentation, roles, groups)).thenReturn(fullResponse);
+        when(userMapper.selectFields(fullResponse, fields)).thenCallRealMethod();
+
+        UserResponse response = userService.getUserById(userId, fields);
+
+        assertEquals("Doe", response.getLastName());
+        assertEquals(List.of("ROLE_MODERATOR"), response.getRoles());
+        assertNull(response.getFirstName());
+        assertNull(response.getGroups());
+        assertSame(fullResponse, userResponseCache.getIfPresent(userId));
+    }
+
+    private void setField(String name, Object value) {
+        try {
+            var field = UserServiceImpl.class.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(userService, value);
+        } catch (Exception e) {
+            fail("Не удалось установить " + name + ": " + e.getMessage());
+        }
+    }
+
     private UserRequest createUserRequest(String username, String email, String password, String firstName, String lastName) {
         try {
             // Создаем через рефлексию, так как Lombok может не работать в тестах
@@ -223,6 +654,14 @@ class UserServiceSimpleTest {
         }
     }
 
+    private Response createdResponse(UUID userId) {
+        Response response = mock(Response.class);
+        when(response.getStatusInfo()).thenReturn(Response.Status.CREATED);
+        when(response.getLocation())
+                .thenReturn(URI.create("http://localhost/admin/realms/" + realm + "/users/" + userId));
+        return response;
+    }
+
     private RoleRepresentation createRoleRepresentation(String roleName) {
         RoleRepresentation role = new RoleRepresentation();
         role.setName(roleName);
@@ -0,0 +1,17 @@
+package com.itm.space.keycloakstub;
+
+import java.util.concurrent.CountDownLatch;
+
+public class KeycloakStubApplication {
+
+    public static void main(String[] args) throws Exception {
+        StubOptions options = StubOptions.parse(args);
+        KeycloakStubServer server = new KeycloakStubServer(options).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "keycloak-stub-shutdown"));
+        System.out.printf("Keycloak stub for realm %s with %d users listening on http://%s:%d/auth "
+                        + "(latency median %.0f ms, p99 %.0f ms, error rate %.3f)%n",
+                options.realm(), server.userStore().size(), options.hostname(), server.port(),
+                options.latencyMedianMs(), options.latencyP99Ms(), options.errorRate());
+        new CountDownLatch(1).await();
+    }
+}
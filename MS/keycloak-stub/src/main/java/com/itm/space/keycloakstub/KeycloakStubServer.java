@@ -0,0 +1,420 @@
+package com.itm.space.keycloakstub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP-заглушка Keycloak 18 (контекст {@code /auth}): вход по authorization code, токен и JWKS реалма
+ * плюс та часть admin API, которой пользуется backend-resources. Задержка и ошибки вносятся только в admin API —
+ * токен и ключи отдаются сразу, как у прогретого Keycloak.
+ */
+public class KeycloakStubServer implements AutoCloseable {
+    private static final Pattern ADMIN_PATH = Pattern.compile("^/auth/admin/realms/([^/]+)(/.*)?$");
+    private static final Pattern REALM_PATH = Pattern.compile("^/auth/realms/([^/]+)(/.*)$");
+    private static final Pattern USER_PATH = Pattern.compile("^/users/([^/]+)(/role-mappings(/realm)?|/groups)?$");
+    private static final Pattern USER_GROUP_PATH = Pattern.compile("^/users/([^/]+)/groups/([^/]+)$");
+    private static final Pattern ROLE_USERS_PATH = Pattern.compile("^/roles/([^/]+)/users$");
+    private static final Pattern GROUP_MEMBERS_PATH = Pattern.compile("^/groups/([^/]+)/members$");
+    private static final String DEFAULT_LOGIN = "load-test";
+
+    private final StubOptions options;
+    private final UserStore userStore;
+    private final LatencyModel latencyModel;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final TokenIssuer tokenIssuer;
+    private final ConcurrentMap<String, PendingLogin> pendingLogins = new ConcurrentHashMap<>();
+
+    public KeycloakStubServer(StubOptions options) throws IOException {
+        this.options = options;
+        this.userStore = new UserStore(options);
+        this.latencyModel = new LatencyModel(options.latencyMedianMs(), options.latencyP99Ms(), options.errorRate());
+        this.server = HttpServer.create(new InetSocketAddress(options.port()), 0);
+        // Задержка реализована через sleep, поэтому потоков столько, сколько одновременных запросов
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/auth", this::handle);
+        this.tokenIssuer = new TokenIssuer(
+                "http://" + options.hostname() + ":" + server.getAddress().getPort() + "/auth/realms/" + options.realm(),
+                options.tokenLifespanSeconds());
+    }
+
+    public KeycloakStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public UserStore userStore() {
+        return userStore;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            Matcher admin = ADMIN_PATH.matcher(path);
+            Matcher realm = REALM_PATH.matcher(path);
+            if (admin.matches() && options.realm().equals(admin.group(1))) {
+                handleAdmin(exchange, admin.group(2) == null ? "" : admin.group(2));
+            } else if (realm.matches() && options.realm().equals(realm.group(1))) {
+                handleRealm(exchange, realm.group(2));
+            } else {
+                send(exchange, 404, Map.of("error", "Realm not found"));
+            }
+        } catch (RuntimeException ex) {
+            send(exchange, 500, Map.of("error", String.valueOf(ex.getMessage())));
+        }
+    }
+
+    private void handleRealm(HttpExchange exchange, String path) throws IOException {
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method) && "/protocol/openid-connect/token".equals(path)) {
+            issueToken(exchange);
+        } else if ("GET".equals(method) && "/protocol/openid-connect/auth".equals(path)) {
+            authorize(exchange);
+        } else if ("GET".equals(method) && "/protocol/openid-connect/userinfo".equals(path)) {
+            Map<String, Object> userInfo = new LinkedHashMap<>();
+            userInfo.put("sub", userId(DEFAULT_LOGIN));
+            userInfo.put("preferred_username", DEFAULT_LOGIN);
+            send(exchange, 200, userInfo);
+        } else if ("GET".equals(method) && "/protocol/openid-connect/certs".equals(path)) {
+            sendRaw(exchange, 200, tokenIssuer.jwkSet().getBytes(StandardCharsets.UTF_8));
+        } else if ("GET".equals(method) && "/.well-known/openid-configuration".equals(path)) {
+            String endpoints = tokenIssuer.issuer() + "/protocol/openid-connect";
+            Map<String, Object> configuration = new LinkedHashMap<>();
+            configuration.put("issuer", tokenIssuer.issuer());
+            configuration.put("authorization_endpoint", endpoints + "/auth");
+            configuration.put("token_endpoint", endpoints + "/token");
+            configuration.put("userinfo_endpoint", endpoints + "/userinfo");
+            configuration.put("jwks_uri", endpoints + "/certs");
+            configuration.put("grant_types_supported", List.of("authorization_code", "client_credentials", "password"));
+            configuration.put("response_types_supported", List.of("code"));
+            configuration.put("subject_types_supported", List.of("public"));
+            configuration.put("id_token_signing_alg_values_supported", List.of("RS256"));
+            configuration.put("token_endpoint_auth_methods_supported", List.of("client_secret_basic", "client_secret_post"));
+            configuration.put("scopes_supported", List.of("openid", "profile", "email"));
+            send(exchange, 200, configuration);
+        } else {
+            send(exchange, 404, Map.of("error", "Not found"));
+        }
+    }
+
+    /**
+     * Страница входа не показывается: пользователь ({@code login_hint} или {@value #DEFAULT_LOGIN})
+     * считается вошедшим, и браузер сразу уходит на {@code redirect_uri} с кодом.
+     */
+    private void authorize(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        String redirectUri = query.get("redirect_uri");
+        if (redirectUri == null || !"code".equals(query.get("response_type"))) {
+            send(exchange, 400, Map.of("error", "invalid_request"));
+            return;
+        }
+        String code = UUID.randomUUID().toString();
+        pendingLogins.put(code, new PendingLogin(query.getOrDefault("login_hint", DEFAULT_LOGIN),
+                query.get("client_id"), query.get("nonce")));
+        StringBuilder location = new StringBuilder(redirectUri)
+                .append(redirectUri.contains("?") ? '&' : '?')
+                .append("code=").append(code);
+        if (query.containsKey("state")) {
+            location.append("&state=").append(URLEncoder.encode(query.get("state"), StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().add("Location", location.toString());
+        sendEmpty(exchange, 302);
+    }
+
+    private void issueToken(HttpExchange exchange) throws IOException {
+        Map<String, String> form = query(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String clientId = form.getOrDefault("client_id", basicAuthClientId(exchange));
+        Map<String, Object> token = new LinkedHashMap<>();
+        if ("authorization_code".equals(form.get("grant_type"))) {
+            PendingLogin login = pendingLogins.remove(form.getOrDefault("code", ""));
+            if (login == null) {
+                send(exchange, 400, Map.of("error", "invalid_grant"));
+                return;
+            }
+            String subject = userId(login.username());
+            token.put("access_token", tokenIssuer.issue(subject, login.username(), login.clientId(), options.tokenRoles()));
+            token.put("id_token", tokenIssuer.issueIdToken(subject, login.username(), login.clientId(), login.nonce()));
+            token.put("scope", "openid");
+        } else {
+            String username = form.getOrDefault("username", "service-account-" + clientId);
+            token.put("access_token", tokenIssuer.issue(userId(username), username, clientId, options.tokenRoles()));
+            token.put("scope", "profile email");
+        }
+        token.put("expires_in", tokenIssuer.lifespanSeconds());
+        token.put("refresh_expires_in", 0);
+        token.put("token_type", "Bearer");
+        token.put("not-before-policy", 0);
+        send(exchange, 200, token);
+    }
+
+    private void handleAdmin(HttpExchange exchange, String path) throws IOException {
+        if (!exchange.getRequestHeaders().getOrDefault("Authorization", List.of()).stream()
+                .anyMatch(header -> header.startsWith("Bearer "))) {
+            send(exchange, 401, Map.of("error", "HTTP 401 Unauthorized"));
+            return;
+        }
+        sleep(latencyModel.nextDelayMillis());
+        if (latencyModel.nextIsError()) {
+            send(exchange, 503, Map.of("error", "Injected failure"));
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+        int first = Integer.parseInt(query.getOrDefault("first", "0"));
+        int max = Integer.parseInt(query.getOrDefault("max", "100"));
+        Matcher user = USER_PATH.matcher(path);
+        Matcher userGroup = USER_GROUP_PATH.matcher(path);
+        Matcher roleUsers = ROLE_USERS_PATH.matcher(path);
+        Matcher groupMembers = GROUP_MEMBERS_PATH.matcher(path);
+
+        if ("/users".equals(path) && "POST".equals(method)) {
+            createUser(exchange);
+        } else if ("/users".equals(path) && "GET".equals(method)) {
+            send(exchange, 200, userStore.list(first, max, userFilter(query)).stream().map(this::user).toList());
+        } else if (user.matches() && "GET".equals(method)) {
+            getUser(exchange, user.group(1), user.group(2));
+        } else if (user.matches() && user.group(2) == null && "DELETE".equals(method)) {
+            deleteUser(exchange, user.group(1));
+        } else if (user.matches() && "/role-mappings/realm".equals(user.group(2)) && "POST".equals(method)) {
+            addRealmRoles(exchange, user.group(1));
+        } else if (userGroup.matches() && "PUT".equals(method)) {
+            joinGroup(exchange, userGroup.group(1), userGroup.group(2));
+        } else if ("/roles".equals(path) && "GET".equals(method)) {
+            send(exchange, 200, userStore.roles().stream().map(this::role).toList());
+        } else if (roleUsers.matches() && "GET".equals(method)) {
+            String roleName = URLDecoder.decode(roleUsers.group(1), StandardCharsets.UTF_8);
+            send(exchange, 200, userStore.roleMembers(roleName, first, max).stream().map(this::user).toList());
+        } else if ("/groups".equals(path) && "GET".equals(method)) {
+            send(exchange, 200, userStore.groups().stream().skip(first).limit(max).map(this::group).toList());
+        } else if (groupMembers.matches() && "GET".equals(method)) {
+            send(exchange, 200, userStore.groupMembers(groupMembers.group(1), first, max).stream().map(this::user).toList());
+        } else {
+            send(exchange, 404, Map.of("error", "Not found"));
+        }
+    }
+
+    private void createUser(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        String username = body.path("username").asText(null);
+        if (username == null || username.isBlank()) {
+            send(exchange, 400, Map.of("errorMessage", "User name is missing"));
+            return;
+        }
+        String id = userStore.create(username, body.path("email").asText(null), body.path("firstName").asText(null),
+                body.path("lastName").asText(null), body.path("enabled").asBoolean(true));
+        if (id == null) {
+            send(exchange, 409, Map.of("errorMessage", "User exists with same username"));
+            return;
+        }
+        String location = "http://" + options.hostname() + ":" + port() + "/auth/admin/realms/" + options.realm()
+                + "/users/" + id;
+        exchange.getResponseHeaders().add("Location", location);
+        sendEmpty(exchange, 201);
+    }
+
+    private void getUser(HttpExchange exchange, String id, String subresource) throws IOException {
+        UserStore.User user = userStore.get(id);
+        if (user == null) {
+            send(exchange, 404, Map.of("error", "User not found"));
+        } else if (subresource == null) {
+            send(exchange, 200, user(user));
+        } else if (subresource.startsWith("/role-mappings")) {
+            List<Map<String, Object>> realmMappings = userStore.rolesOf(user).stream().map(this::role).toList();
+            send(exchange, 200, subresource.endsWith("/realm") ? realmMappings : Map.of("realmMappings", realmMappings));
+        } else {
+            send(exchange, 200, userStore.groupsOf(user).stream().map(this::group).toList());
+        }
+    }
+
+    private void deleteUser(HttpExchange exchange, String id) throws IOException {
+        if (userStore.delete(id)) {
+            sendEmpty(exchange, 204);
+        } else {
+            send(exchange, 404, Map.of("error", "User not found"));
+        }
+    }
+
+    private void addRealmRoles(HttpExchange exchange, String id) throws IOException {
+        List<String> roleNames = new ArrayList<>();
+        for (JsonNode role : objectMapper.readTree(exchange.getRequestBody())) {
+            String name = role.path("name").asText(null);
+            if (name == null || userStore.role(name) == null) {
+                send(exchange, 404, Map.of("error", "Role not found"));
+                return;
+            }
+            roleNames.add(name);
+        }
+        if (userStore.addRoles(id, roleNames) == null) {
+            send(exchange, 404, Map.of("error", "User not found"));
+            return;
+        }
+        sendEmpty(exchange, 204);
+    }
+
+    private void joinGroup(HttpExchange exchange, String id, String groupId) throws IOException {
+        if (userStore.group(groupId) == null) {
+            send(exchange, 404, Map.of("error", "Group not found"));
+        } else if (userStore.joinGroup(id, groupId) == null) {
+            send(exchange, 404, Map.of("error", "User not found"));
+        } else {
+            sendEmpty(exchange, 204);
+        }
+    }
+
+    private Predicate<UserStore.User> userFilter(Map<String, String> query) {
+        String search = lower(query.get("search"));
+        String username = lower(query.get("username"));
+        String email = lower(query.get("email"));
+        String firstName = lower(query.get("firstName"));
+        String lastName = lower(query.get("lastName"));
+        String enabled = query.get("enabled");
+        return user -> (search == null || contains(user.username(), search) || contains(user.email(), search)
+                || contains(user.firstName(), search) || contains(user.lastName(), search))
+                && (username == null || contains(user.username(), username))
+                && (email == null || contains(user.email(), email))
+                && (firstName == null || contains(user.firstName(), firstName))
+                && (lastName == null || contains(user.lastName(), lastName))
+                && (enabled == null || Boolean.parseBoolean(enabled) == user.enabled());
+    }
+
+    private Map<String, Object> user(UserStore.User user) {
+        Map<String, Object> representation = new LinkedHashMap<>();
+        representation.put("id", user.id());
+        representation.put("createdTimestamp", user.createdTimestamp());
+        representation.put("username", user.username());
+        representation.put("enabled", user.enabled());
+        representation.put("emailVerified", false);
+        representation.put("firstName", user.firstName());
+        representation.put("lastName", user.lastName());
+        representation.put("email", user.email());
+        return representation;
+    }
+
+    private Map<String, Object> role(UserStore.Role role) {
+        Map<String, Object> representation = new LinkedHashMap<>();
+        representation.put("id", role.id());
+        representation.put("name", role.name());
+        representation.put("composite", false);
+        representation.put("clientRole", false);
+        representation.put("containerId", options.realm());
+        return representation;
+    }
+
+    private Map<String, Object> group(UserStore.Group group) {
+        Map<String, Object> representation = new LinkedHashMap<>();
+        representation.put("id", group.id());
+        representation.put("name", group.name());
+        representation.put("path", "/" + group.name());
+        representation.put("subGroups", List.of());
+        return representation;
+    }
+
+    private String userId(String username) {
+        UserStore.User user = userStore.byUsername(username);
+        // Пользователей вне хранилища (сервисные аккаунты, логин по умолчанию) подписываем стабильным UUID
+        return user != null ? user.id() : UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String basicAuthClientId(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Basic ")) {
+            return "backend-resources";
+        }
+        String credentials = new String(Base64.getDecoder().decode(header.substring(6)), StandardCharsets.UTF_8);
+        return URLDecoder.decode(credentials.substring(0, credentials.indexOf(':')), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ответ без тела. Остаток запроса дочитывается заранее: HttpServer завершает такой обмен сразу
+     * и закрывает соединение, если тело запроса не дочитано, — клиент, переиспользующий keep-alive соединение,
+     * получил бы обрыв на следующем запросе.
+     */
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.getRequestBody().close();
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        sendRaw(exchange, status, objectMapper.writeValueAsBytes(body));
+    }
+
+    private static void sendRaw(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> values = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return values;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = URLDecoder.decode(separator < 0 ? pair : pair.substring(0, separator), StandardCharsets.UTF_8);
+            String value = separator < 0 ? "" : URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+            values.put(name, value);
+        }
+        return values;
+    }
+
+    private static String lower(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean contains(String value, String fragment) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(fragment);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingLogin(String username, String clientId, String nonce) {
+    }
+}
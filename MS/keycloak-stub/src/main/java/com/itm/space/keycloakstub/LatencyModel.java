@@ -0,0 +1,31 @@
+package com.itm.space.keycloakstub;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Логнормальная задержка: медиана и p99 задаются явно, поэтому хвост распределения похож на настоящий Keycloak под нагрузкой.
+ */
+public class LatencyModel {
+    private static final double Z_99 = 2.3263;
+
+    private final double mu;
+    private final double sigma;
+    private final double errorRate;
+
+    public LatencyModel(double medianMs, double p99Ms, double errorRate) {
+        this.mu = medianMs > 0 ? Math.log(medianMs) : Double.NEGATIVE_INFINITY;
+        this.sigma = medianMs > 0 && p99Ms > medianMs ? Math.log(p99Ms / medianMs) / Z_99 : 0;
+        this.errorRate = errorRate;
+    }
+
+    public long nextDelayMillis() {
+        if (mu == Double.NEGATIVE_INFINITY) {
+            return 0;
+        }
+        return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    public boolean nextIsError() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
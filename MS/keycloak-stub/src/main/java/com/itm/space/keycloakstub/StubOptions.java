@@ -0,0 +1,54 @@
+package com.itm.space.keycloakstub;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры заглушки. Задаются аргументами вида {@code --users=10000 --latency-p99-ms=250}.
+ *
+ * @param latencyMedianMs медиана задержки ответа admin API, мс
+ * @param latencyP99Ms    99-й перцентиль задержки; вместе с медианой задаёт логнормальное распределение
+ * @param errorRate       доля запросов admin API, на которые отвечаем 503
+ */
+public record StubOptions(String hostname, int port, String realm, int users, int rolesPerUser, int groupsPerUser,
+                          double latencyMedianMs, double latencyP99Ms, double errorRate, int tokenLifespanSeconds,
+                          List<String> tokenRoles, long seed) {
+
+    public static StubOptions defaults() {
+        return parse(new String[0]);
+    }
+
+    public static StubOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return new StubOptions(
+                values.getOrDefault("hostname", "localhost"),
+                Integer.parseInt(values.getOrDefault("port", "8180")),
+                values.getOrDefault("realm", "ITM"),
+                Integer.parseInt(values.getOrDefault("users", "1000")),
+                Integer.parseInt(values.getOrDefault("roles-per-user", "2")),
+                Integer.parseInt(values.getOrDefault("groups-per-user", "1")),
+                Double.parseDouble(values.getOrDefault("latency-median-ms", "15")),
+                Double.parseDouble(values.getOrDefault("latency-p99-ms", "120")),
+                Double.parseDouble(values.getOrDefault("error-rate", "0")),
+                Integer.parseInt(values.getOrDefault("token-lifespan-seconds", "300")),
+                List.of(values.getOrDefault("token-roles", "MODERATOR").split(",")),
+                Long.parseLong(values.getOrDefault("seed", "42")));
+    }
+
+    public StubOptions withPort(int port) {
+        return new StubOptions(hostname, port, realm, users, rolesPerUser, groupsPerUser, latencyMedianMs,
+                latencyP99Ms, errorRate, tokenLifespanSeconds, tokenRoles, seed);
+    }
+
+    public StubOptions withLatency(double medianMs, double p99Ms, double errorRate) {
+        return new StubOptions(hostname, port, realm, users, rolesPerUser, groupsPerUser, medianMs, p99Ms,
+                errorRate, tokenLifespanSeconds, tokenRoles, seed);
+    }
+}
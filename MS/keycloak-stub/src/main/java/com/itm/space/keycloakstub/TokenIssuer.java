@@ -0,0 +1,106 @@
+package com.itm.space.keycloakstub;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Выпускает токены, подписанные RS256 ключом, который генерируется при старте заглушки и отдаётся через JWKS.
+ */
+public class TokenIssuer {
+    private final RSAKey signingKey;
+    private final RSASSASigner signer;
+    private final String issuer;
+    private final int lifespanSeconds;
+
+    public TokenIssuer(String issuer, int lifespanSeconds) {
+        try {
+            this.signingKey = new RSAKeyGenerator(2048)
+                    .keyID(UUID.randomUUID().toString())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.RS256)
+                    .generate();
+            this.signer = new RSASSASigner(signingKey);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Could not generate the stub signing key", ex);
+        }
+        this.issuer = issuer;
+        this.lifespanSeconds = lifespanSeconds;
+    }
+
+    public String issuer() {
+        return issuer;
+    }
+
+    public int lifespanSeconds() {
+        return lifespanSeconds;
+    }
+
+    public String issue(String subject, String username, String clientId, List<String> roles) {
+        Instant now = Instant.now();
+        return sign(new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issuer(issuer)
+                .subject(subject)
+                .audience("account")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(lifespanSeconds)))
+                .claim("typ", "Bearer")
+                .claim("azp", clientId)
+                .claim("preferred_username", username)
+                .claim("realm_access", Map.of("roles", roles))
+                .build());
+    }
+
+    /**
+     * ID-токен для входа через authorization code: аудитория — клиент, {@code nonce} берётся из запроса авторизации.
+     */
+    public String issueIdToken(String subject, String username, String clientId, String nonce) {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .jwtID(UUID.randomUUID().toString())
+                .issuer(issuer)
+                .subject(subject)
+                .audience(clientId)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(lifespanSeconds)))
+                .claim("typ", "ID")
+                .claim("azp", clientId)
+                .claim("preferred_username", username);
+        if (nonce != null) {
+            claims.claim("nonce", nonce);
+        }
+        return sign(claims.build());
+    }
+
+    public String jwkSet() {
+        return new JWKSet(signingKey).toString(true);
+    }
+
+    private String sign(JWTClaimsSet claims) {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256)
+                .keyID(signingKey.getKeyID())
+                .type(JOSEObjectType.JWT)
+                .build(), claims);
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException ex) {
+            throw new IllegalStateException("Could not sign the stub token", ex);
+        }
+        return jwt.serialize();
+    }
+}
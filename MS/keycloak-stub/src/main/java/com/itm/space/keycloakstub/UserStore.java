@@ -0,0 +1,199 @@
+package com.itm.space.keycloakstub;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Пользователи, роли и группы реалма в памяти. Начальный набор генерируется детерминированно из {@code seed}.
+ */
+public class UserStore {
+    private static final int GENERATED_ROLES = 10;
+    private static final int GENERATED_GROUPS = 10;
+
+    private final String realm;
+    private final Map<String, Role> roles = new LinkedHashMap<>();
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private final ConcurrentMap<String, User> usersById = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, User> usersByUsername = new ConcurrentSkipListMap<>();
+
+    public record Role(String id, String name) {
+    }
+
+    public record Group(String id, String name) {
+    }
+
+    public record User(String id, String username, String email, String firstName, String lastName, boolean enabled,
+                       long createdTimestamp, List<String> roles, List<String> groups) {
+    }
+
+    public UserStore(StubOptions options) {
+        this.realm = options.realm();
+        Random random = new Random(options.seed());
+        addRole("default-roles-" + realm.toLowerCase(Locale.ROOT), random);
+        addRole("MODERATOR", random);
+        for (int i = 0; i < GENERATED_ROLES; i++) {
+            addRole("role-" + i, random);
+        }
+        addGroup("Moderators", random);
+        for (int i = 0; i < GENERATED_GROUPS; i++) {
+            addGroup("group-" + i, random);
+        }
+        List<String> roleNames = new ArrayList<>(roles.keySet());
+        List<String> groupIds = new ArrayList<>(groups.keySet());
+        for (int i = 0; i < options.users(); i++) {
+            String username = String.format("user%06d", i);
+            put(new User(new UUID(random.nextLong(), random.nextLong()).toString(), username,
+                    username + "@example.com", "First" + i, "Last" + i, true, System.currentTimeMillis(),
+                    pick(roleNames, options.rolesPerUser(), random), pick(groupIds, options.groupsPerUser(), random)));
+        }
+    }
+
+    public String realm() {
+        return realm;
+    }
+
+    /**
+     * @return id созданного пользователя или {@code null}, если username уже занят
+     */
+    public String create(String username, String email, String firstName, String lastName, boolean enabled) {
+        // Keycloak хранит username в нижнем регистре
+        User user = new User(UUID.randomUUID().toString(), username.toLowerCase(Locale.ROOT), email, firstName,
+                lastName, enabled, System.currentTimeMillis(), List.of(roles.keySet().iterator().next()), List.of());
+        if (usersByUsername.putIfAbsent(user.username(), user) != null) {
+            return null;
+        }
+        usersById.put(user.id(), user);
+        return user.id();
+    }
+
+    /**
+     * @return {@code false}, если пользователя нет
+     */
+    public boolean delete(String id) {
+        User user = usersById.remove(id);
+        if (user == null) {
+            return false;
+        }
+        usersByUsername.remove(user.username());
+        return true;
+    }
+
+    /**
+     * @return пользователь с добавленными ролями или {@code null}, если его нет
+     */
+    public User addRoles(String id, List<String> roleNames) {
+        return update(id, user -> new User(user.id(), user.username(), user.email(), user.firstName(),
+                user.lastName(), user.enabled(), user.createdTimestamp(), union(user.roles(), roleNames), user.groups()));
+    }
+
+    /**
+     * @return пользователь, вступивший в группу, или {@code null}, если его нет
+     */
+    public User joinGroup(String id, String groupId) {
+        return update(id, user -> new User(user.id(), user.username(), user.email(), user.firstName(),
+                user.lastName(), user.enabled(), user.createdTimestamp(), user.roles(),
+                union(user.groups(), List.of(groupId))));
+    }
+
+    public User get(String id) {
+        return usersById.get(id);
+    }
+
+    public User byUsername(String username) {
+        return usersByUsername.get(username.toLowerCase(Locale.ROOT));
+    }
+
+    public List<User> list(int first, int max, Predicate<User> filter) {
+        return page(usersByUsername.values().stream().filter(filter), first, max);
+    }
+
+    public List<Role> roles() {
+        return List.copyOf(roles.values());
+    }
+
+    public Role role(String name) {
+        return roles.get(name);
+    }
+
+    public List<Role> rolesOf(User user) {
+        return user.roles().stream().map(roles::get).toList();
+    }
+
+    public List<User> roleMembers(String roleName, int first, int max) {
+        return list(first, max, user -> user.roles().contains(roleName));
+    }
+
+    public List<Group> groups() {
+        return List.copyOf(groups.values());
+    }
+
+    public Group group(String id) {
+        return groups.get(id);
+    }
+
+    public List<Group> groupsOf(User user) {
+        return user.groups().stream().map(groups::get).toList();
+    }
+
+    public List<User> groupMembers(String groupId, int first, int max) {
+        return list(first, max, user -> user.groups().contains(groupId));
+    }
+
+    public int size() {
+        return usersById.size();
+    }
+
+    private User update(String id, UnaryOperator<User> change) {
+        // Индекс по username правится под блокировкой записи usersById, поэтому delete его не обгонит
+        return usersById.computeIfPresent(id, (key, user) -> {
+            User updated = change.apply(user);
+            usersByUsername.put(updated.username(), updated);
+            return updated;
+        });
+    }
+
+    private void put(User user) {
+        usersById.put(user.id(), user);
+        usersByUsername.put(user.username().toLowerCase(Locale.ROOT), user);
+    }
+
+    private void addRole(String name, Random random) {
+        roles.put(name, new Role(new UUID(random.nextLong(), random.nextLong()).toString(), name));
+    }
+
+    private void addGroup(String name, Random random) {
+        String id = new UUID(random.nextLong(), random.nextLong()).toString();
+        groups.put(id, new Group(id, name));
+    }
+
+    private static List<String> pick(List<String> values, int count, Random random) {
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < Math.min(count, values.size()); i++) {
+            String value = values.get(random.nextInt(values.size()));
+            if (!picked.contains(value)) {
+                picked.add(value);
+            }
+        }
+        return List.copyOf(picked);
+    }
+
+    private static List<String> union(List<String> values, List<String> added) {
+        return Stream.concat(values.stream(), added.stream()).distinct().toList();
+    }
+
+    private static <T> List<T> page(Stream<T> values, int first, int max) {
+        return values.skip(Math.max(first, 0)).limit(Math.max(max, 0)).toList();
+    }
+}
@@ -0,0 +1,144 @@
+package com.itm.space.keycloakstub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeycloakStubServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KeycloakStubServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new KeycloakStubServer(StubOptions.defaults().withPort(0).withLatency(0, 0, 0)).start();
+        baseUrl = "http://localhost:" + server.port() + "/auth";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void tokenIsSignedWithPublishedKey() throws Exception {
+        HttpResponse<String> token = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/realms/ITM/protocol/openid-connect/token"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("grant_type=client_credentials&client_id=backend-resources"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, token.statusCode());
+        SignedJWT jwt = SignedJWT.parse(objectMapper.readTree(token.body()).path("access_token").asText());
+
+        HttpResponse<String> certs = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/realms/ITM/protocol/openid-connect/certs"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JWKSet jwkSet = JWKSet.parse(certs.body());
+
+        assertEquals(jwkSet.getKeys().get(0).getKeyID(), jwt.getHeader().getKeyID());
+        assertEquals(List.of("MODERATOR"), ((Map<?, ?>) jwt.getJWTClaimsSet().getClaim("realm_access")).get("roles"));
+    }
+
+    @Test
+    void createdUserIsReadableThroughAdminApi() throws Exception {
+        HttpResponse<String> created = admin(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/realms/ITM/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"stub-user\",\"email\":\"stub@example.com\"}")));
+        assertEquals(201, created.statusCode());
+        String location = created.headers().firstValue("Location").orElseThrow();
+
+        HttpResponse<String> duplicate = admin(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/realms/ITM/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"stub-user\"}")));
+        assertEquals(409, duplicate.statusCode());
+
+        JsonNode user = objectMapper.readTree(admin(HttpRequest.newBuilder(URI.create(location))).body());
+        assertEquals("stub-user", user.path("username").asText());
+
+        JsonNode mappings = objectMapper.readTree(admin(HttpRequest.newBuilder(URI.create(location + "/role-mappings"))).body());
+        assertTrue(mappings.path("realmMappings").isArray());
+
+        JsonNode search = objectMapper.readTree(admin(HttpRequest.newBuilder(
+                URI.create(baseUrl + "/admin/realms/ITM/users?search=stub&first=0&max=10"))).body());
+        assertEquals(1, search.size());
+    }
+
+    @Test
+    void rolesAndGroupsAreAssignedAndUserIsDeletedThroughAdminApi() throws Exception {
+        String location = admin(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/realms/ITM/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"stub-user\"}")))
+                .headers().firstValue("Location").orElseThrow();
+        String groupId = objectMapper.readTree(admin(HttpRequest.newBuilder(
+                URI.create(baseUrl + "/admin/realms/ITM/groups"))).body()).get(0).path("id").asText();
+
+        HttpResponse<String> roles = admin(HttpRequest.newBuilder(URI.create(location + "/role-mappings/realm"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"name\":\"MODERATOR\"}]")));
+        assertEquals(204, roles.statusCode());
+        HttpResponse<String> group = admin(HttpRequest.newBuilder(URI.create(location + "/groups/" + groupId))
+                .PUT(HttpRequest.BodyPublishers.noBody()));
+        assertEquals(204, group.statusCode());
+        HttpResponse<String> unknownRole = admin(HttpRequest.newBuilder(URI.create(location + "/role-mappings/realm"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[{\"name\":\"NO_SUCH_ROLE\"}]")));
+        assertEquals(404, unknownRole.statusCode());
+
+        JsonNode realmRoles = objectMapper.readTree(admin(HttpRequest.newBuilder(URI.create(location + "/role-mappings/realm"))).body());
+        assertTrue(realmRoles.findValuesAsText("name").contains("MODERATOR"));
+        JsonNode groups = objectMapper.readTree(admin(HttpRequest.newBuilder(URI.create(location + "/groups"))).body());
+        assertEquals(List.of(groupId), groups.findValuesAsText("id"));
+
+        assertEquals(204, admin(HttpRequest.newBuilder(URI.create(location)).DELETE()).statusCode());
+        assertEquals(404, admin(HttpRequest.newBuilder(URI.create(location))).statusCode());
+        assertEquals(404, admin(HttpRequest.newBuilder(URI.create(location)).DELETE()).statusCode());
+    }
+
+    @Test
+    void authorizationCodeLoginIssuesIdTokenWithNonce() throws Exception {
+        HttpResponse<Void> authorization = client.send(HttpRequest.newBuilder(URI.create(baseUrl
+                        + "/realms/ITM/protocol/openid-connect/auth?response_type=code&client_id=backend-gateway-client"
+                        + "&redirect_uri=http://gateway/login&state=xyz&nonce=n-1"))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, authorization.statusCode());
+        String location = authorization.headers().firstValue("Location").orElseThrow();
+        assertTrue(location.startsWith("http://gateway/login?code="));
+        assertTrue(location.endsWith("&state=xyz"));
+        String code = location.substring(location.indexOf("code=") + 5, location.indexOf('&'));
+
+        HttpResponse<String> token = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/realms/ITM/protocol/openid-connect/token"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString("backend-gateway-client:secret".getBytes()))
+                .POST(HttpRequest.BodyPublishers.ofString("grant_type=authorization_code&code=" + code))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, token.statusCode());
+        SignedJWT idToken = SignedJWT.parse(objectMapper.readTree(token.body()).path("id_token").asText());
+        assertEquals("n-1", idToken.getJWTClaimsSet().getStringClaim("nonce"));
+        assertEquals(List.of("backend-gateway-client"), idToken.getJWTClaimsSet().getAudience());
+    }
+
+    @Test
+    void adminApiRequiresBearerToken() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/realms/ITM/users"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(401, response.statusCode());
+    }
+
+    private HttpResponse<String> admin(HttpRequest.Builder request) throws Exception {
+        return client.send(request.header("Authorization", "Bearer stub").build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
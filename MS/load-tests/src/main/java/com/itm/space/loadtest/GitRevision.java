@@ -0,0 +1,31 @@
+package com.itm.space.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+final class GitRevision {
+
+    private GitRevision() {
+    }
+
+    /**
+     * Короткий хеш HEAD, чтобы отчёты разных коммитов не перезаписывали друг друга.
+     */
+    static String current() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true)
+                    .start();
+            String revision = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0 && !revision.isEmpty()) {
+                return revision;
+            }
+        } catch (IOException ex) {
+            // git недоступен — ниже вернём метку по умолчанию
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return "local";
+    }
+}
@@ -0,0 +1,141 @@
+package com.itm.space.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки с открытой моделью: запрос {@code n} планируется на момент {@code start + n / rate}
+ * и уходит в этот момент независимо от того, ответили ли на предыдущие. Задержка считается от запланированного
+ * момента, так что замедление сервиса не прячется за тем, что генератор стал реже отправлять (coordinated omission).
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final LoadTestOptions options;
+    private final List<Session> sessions;
+    private final Workload workload;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<String, LongAdder>> statuses = new EnumMap<>(Operation.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+
+    public LoadGenerator(LoadTestOptions options, List<Session> sessions, Workload workload) {
+        this.options = options;
+        this.sessions = sessions;
+        this.workload = workload;
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+            statuses.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    public LoadReport run() throws InterruptedException {
+        String startedAt = Instant.now().toString();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds());
+
+        for (long sequence = 0; ; sequence++) {
+            long intended = start + sequence * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            for (long wait = intended - System.nanoTime(); wait > 0; wait = intended - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            send(sequence, intended, intended >= measureFrom);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return report(startedAt);
+    }
+
+    private void send(long sequence, long intended, boolean measured) {
+        Operation operation = workload.next();
+        if (inFlight.incrementAndGet() > options.maxInFlight()) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                dropped.increment();
+            }
+            return;
+        }
+        Session session = sessions.get((int) (sequence % sessions.size()));
+        HttpRequest request;
+        try {
+            request = workload.request(operation, session, sequence);
+        } catch (RuntimeException ex) {
+            inFlight.decrementAndGet();
+            if (measured) {
+                record(operation, intended, null, ex);
+            }
+            return;
+        }
+        session.client().sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        record(operation, intended, response, failure);
+                    }
+                });
+    }
+
+    private void record(Operation operation, long intended, HttpResponse<?> response, Throwable failure) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+        recorders.get(operation).recordValue(Math.min(Math.max(micros, 0), HIGHEST_TRACKABLE_MICROS));
+        String status = failure != null ? rootCause(failure).getClass().getSimpleName() : String.valueOf(response.statusCode());
+        statuses.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (failure != null || response.statusCode() >= 400) {
+            errors.get(operation).increment();
+        }
+    }
+
+    private LoadReport report(String startedAt) {
+        Map<String, LoadReport.OperationStats> operations = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        Map<String, Long> totalStatuses = new HashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            long operationErrors = errors.get(operation).sum();
+            Map<String, Long> operationStatuses = new HashMap<>();
+            statuses.get(operation).forEach((status, count) -> operationStatuses.put(status, count.sum()));
+            operations.put(operation.getTag(), LoadReport.OperationStats.of(
+                    histogram, operationErrors, operationStatuses, options.durationSeconds()));
+            total.add(histogram);
+            totalErrors += operationErrors;
+            operationStatuses.forEach((status, count) -> totalStatuses.merge(status, count, Long::sum));
+        }
+        return new LoadReport(options.label(), startedAt, options.target(), options.auth(), options.rate(),
+                options.durationSeconds(), dropped.sum(), operations,
+                LoadReport.OperationStats.of(total, totalErrors, totalStatuses, options.durationSeconds()));
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
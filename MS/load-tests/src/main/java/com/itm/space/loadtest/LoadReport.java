@@ -0,0 +1,66 @@
+package com.itm.space.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Итог прогона. Сохраняется в JSON, чтобы сравнивать прогоны разных коммитов командой {@code compare}.
+ *
+ * @param dropped запросы, которые не были отправлены из-за предела {@code maxInFlight}
+ */
+public record LoadReport(String label, String startedAt, String target, String auth, double rate, int durationSeconds,
+                         long dropped, Map<String, OperationStats> operations, OperationStats total) {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static LoadReport read(Path path) throws IOException {
+        return OBJECT_MAPPER.readValue(path.toFile(), LoadReport.class);
+    }
+
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        OBJECT_MAPPER.writeValue(path.toFile(), this);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%s @ %s: %.0f req/s for %d s against %s (%s), dropped %d%n",
+                label, startedAt, rate, durationSeconds, target, auth, dropped);
+        out.printf("%-12s %9s %8s %10s %9s %9s %9s %9s %9s  %s%n",
+                "operation", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+        new TreeMap<>(operations).forEach((name, stats) -> stats.print(name, out));
+        total.print("total", out);
+    }
+
+    /**
+     * Перцентили — время от запланированного момента отправки до ответа, поэтому задержки самого
+     * генератора и очередей на стороне клиента в них тоже попадают.
+     */
+    public record OperationStats(long count, long errors, double throughput, double p50Ms, double p90Ms, double p99Ms,
+                                 double p999Ms, double maxMs, Map<String, Long> statuses) {
+
+        static OperationStats of(Histogram micros, long errors, Map<String, Long> statuses, int durationSeconds) {
+            return new OperationStats(micros.getTotalCount(), errors,
+                    durationSeconds > 0 ? (double) micros.getTotalCount() / durationSeconds : 0,
+                    millis(micros.getValueAtPercentile(50)), millis(micros.getValueAtPercentile(90)),
+                    millis(micros.getValueAtPercentile(99)), millis(micros.getValueAtPercentile(99.9)),
+                    millis(micros.getMaxValue()), new TreeMap<>(statuses));
+        }
+
+        void print(String name, PrintStream out) {
+            out.printf("%-12s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    name, count, errors, throughput, p50Ms, p90Ms, p99Ms, p999Ms, maxMs, statuses);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
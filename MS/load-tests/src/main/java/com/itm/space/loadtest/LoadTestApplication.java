@@ -0,0 +1,64 @@
+package com.itm.space.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code run [--name=value...]} — прогон с сохранением отчёта;
+ * {@code compare <baseline.json> <candidate.json> [--max-p99-regression=10]} — сравнение двух отчётов,
+ * код выхода 1 при регрессии.
+ */
+public class LoadTestApplication {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "run";
+        String[] rest = args.length > 0 ? Arrays.copyOfRange(args, 1, args.length) : args;
+        switch (command) {
+            case "run" -> run(LoadTestOptions.parse(rest));
+            case "compare" -> System.exit(compare(rest));
+            default -> {
+                System.err.println("Usage: run [--name=value...] | compare <baseline.json> <candidate.json> "
+                        + "[--max-p99-regression=10]");
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void run(LoadTestOptions options) throws Exception {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < options.sessions(); i++) {
+            sessions.add(Session.login(options));
+        }
+        List<String> userIds = Workload.loadUserIds(sessions.get(0), options);
+        System.out.printf("%d sessions logged in, %d users to read; %d s warmup, %d s measured at %.0f req/s%n",
+                sessions.size(), userIds.size(), options.warmupSeconds(), options.durationSeconds(), options.rate());
+
+        LoadReport report = new LoadGenerator(options, sessions, new Workload(options, userIds)).run();
+        report.print(System.out);
+        report.write(options.output());
+        System.out.println("Report written to " + options.output().toAbsolutePath());
+        // HttpClient держит потоки селектора, дожидаться их завершения незачем
+        System.exit(0);
+    }
+
+    private static int compare(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("compare needs baseline and candidate report paths");
+        }
+        double maxP99Regression = 10;
+        for (String arg : Arrays.copyOfRange(args, 2, args.length)) {
+            if (arg.startsWith("--max-p99-regression=")) {
+                maxP99Regression = Double.parseDouble(arg.substring(arg.indexOf('=') + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        ReportComparison comparison = new ReportComparison(LoadReport.read(Path.of(args[0])), LoadReport.read(Path.of(args[1])));
+        comparison.print(System.out);
+        List<String> regressions = comparison.regressions(maxP99Regression);
+        regressions.forEach(regression -> System.out.println("REGRESSION " + regression));
+        return regressions.isEmpty() ? 0 : 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.itm.space.loadtest;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Параметры прогона. Задаются аргументами вида {@code --rate=500 --duration-seconds=120}.
+ *
+ * @param auth        {@code gateway} — вход через backend-gateway-client по authorization code, сессия в cookie;
+ *                    {@code bearer} — токен с {@code tokenUrl}, запросы напрямую в backend-resources
+ * @param rate        запросов в секунду; открытая модель — темп не зависит от времени ответа
+ * @param createRatio доля POST /api/users в смеси, остальное — GET /api/users/{id}
+ * @param sessions    сколько залогиненных клиентов делят нагрузку по кругу
+ * @param maxInFlight предел одновременных запросов; сверх него запрос не отправляется и считается отброшенным
+ */
+public record LoadTestOptions(String target, String auth, String registrationId, String tokenUrl, String clientId,
+                              double rate, int durationSeconds, int warmupSeconds, double createRatio, int sessions,
+                              int maxInFlight, int idPool, int timeoutSeconds, String label, Path output) {
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        String label = values.getOrDefault("label", GitRevision.current());
+        return new LoadTestOptions(
+                values.getOrDefault("target", "http://localhost:9090"),
+                values.getOrDefault("auth", "gateway"),
+                values.getOrDefault("registration-id", "backend-gateway-client"),
+                values.getOrDefault("token-url", "http://localhost:8180/auth/realms/ITM/protocol/openid-connect/token"),
+                values.getOrDefault("client-id", "backend-resources"),
+                Double.parseDouble(values.getOrDefault("rate", "200")),
+                Integer.parseInt(values.getOrDefault("duration-seconds", "60")),
+                Integer.parseInt(values.getOrDefault("warmup-seconds", "10")),
+                Double.parseDouble(values.getOrDefault("create-ratio", "0.1")),
+                Integer.parseInt(values.getOrDefault("sessions", "8")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                Integer.parseInt(values.getOrDefault("id-pool", "1000")),
+                Integer.parseInt(values.getOrDefault("timeout-seconds", "10")),
+                label,
+                Path.of(values.getOrDefault("output", "load-reports/" + label + ".json")));
+    }
+}
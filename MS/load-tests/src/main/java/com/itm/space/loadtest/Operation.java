@@ -0,0 +1,16 @@
+package com.itm.space.loadtest;
+
+public enum Operation {
+    GET_USER("get_user"),
+    CREATE_USER("create_user");
+
+    private final String tag;
+
+    Operation(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,92 @@
+package com.itm.space.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Сравнение двух прогонов по каждой операции: пропускная способность, перцентили и доля ошибок.
+ */
+public class ReportComparison {
+    private static final Map<String, ToDoubleFunction<LoadReport.OperationStats>> METRICS = Map.of(
+            "req/s", LoadReport.OperationStats::throughput,
+            "p50 ms", LoadReport.OperationStats::p50Ms,
+            "p99 ms", LoadReport.OperationStats::p99Ms,
+            "p99.9 ms", LoadReport.OperationStats::p999Ms,
+            "errors", LoadReport.OperationStats::errors);
+    private static final List<String> METRIC_ORDER = List.of("req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+
+    private final LoadReport baseline;
+    private final LoadReport candidate;
+
+    public ReportComparison(LoadReport baseline, LoadReport candidate) {
+        this.baseline = baseline;
+        this.candidate = candidate;
+    }
+
+    /**
+     * Операции, у которых p99 вырос больше чем на {@code maxP99RegressionPercent} процентов
+     * или ошибок стало больше.
+     */
+    public List<String> regressions(double maxP99RegressionPercent) {
+        List<String> regressions = new ArrayList<>();
+        operations().forEach((name, stats) -> {
+            LoadReport.OperationStats before = stats[0];
+            LoadReport.OperationStats after = stats[1];
+            if (before == null || after == null) {
+                return;
+            }
+            if (after.p99Ms() > before.p99Ms() * (1 + maxP99RegressionPercent / 100)) {
+                regressions.add(String.format("%s: p99 %.2f ms -> %.2f ms (%+.1f%%)",
+                        name, before.p99Ms(), after.p99Ms(), change(before.p99Ms(), after.p99Ms())));
+            }
+            if (errorRate(after) > errorRate(before)) {
+                regressions.add(String.format("%s: error rate %.3f%% -> %.3f%%",
+                        name, errorRate(before) * 100, errorRate(after) * 100));
+            }
+        });
+        return regressions;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("baseline %s (%.0f req/s), candidate %s (%.0f req/s)%n",
+                baseline.label(), baseline.rate(), candidate.label(), candidate.rate());
+        out.printf("%-12s %-9s %12s %12s %9s%n", "operation", "metric", baseline.label(), candidate.label(), "change");
+        operations().forEach((name, stats) -> {
+            if (stats[0] == null || stats[1] == null) {
+                out.printf("%-12s present in only one report%n", name);
+                return;
+            }
+            for (String metric : METRIC_ORDER) {
+                double before = METRICS.get(metric).applyAsDouble(stats[0]);
+                double after = METRICS.get(metric).applyAsDouble(stats[1]);
+                out.printf("%-12s %-9s %12.2f %12.2f %+8.1f%%%n", name, metric, before, after, change(before, after));
+            }
+        });
+    }
+
+    private Map<String, LoadReport.OperationStats[]> operations() {
+        Map<String, LoadReport.OperationStats[]> operations = new TreeMap<>();
+        baseline.operations().forEach((name, stats) ->
+                operations.computeIfAbsent(name, key -> new LoadReport.OperationStats[2])[0] = stats);
+        candidate.operations().forEach((name, stats) ->
+                operations.computeIfAbsent(name, key -> new LoadReport.OperationStats[2])[1] = stats);
+        operations.computeIfAbsent("total", key -> new LoadReport.OperationStats[2])[0] = baseline.total();
+        operations.get("total")[1] = candidate.total();
+        return operations;
+    }
+
+    private static double errorRate(LoadReport.OperationStats stats) {
+        return stats.count() == 0 ? 0 : (double) stats.errors() / stats.count();
+    }
+
+    private static double change(double before, double after) {
+        if (before == 0) {
+            return after == 0 ? 0 : 100;
+        }
+        return (after - before) / before * 100;
+    }
+}
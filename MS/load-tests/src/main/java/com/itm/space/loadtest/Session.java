@@ -0,0 +1,120 @@
+package com.itm.space.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Залогиненный клиент. В режиме {@code gateway} авторизация держится в cookie сессии шлюза,
+ * в режиме {@code bearer} — в access token, который перезапрашивается за минуту до истечения.
+ */
+public class Session {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final LoadTestOptions options;
+    private final HttpClient client;
+    private final CookieManager cookies;
+    private String accessToken;
+    private Instant accessTokenExpiresAt = Instant.MIN;
+
+    private Session(LoadTestOptions options, HttpClient client, CookieManager cookies) {
+        this.options = options;
+        this.client = client;
+        this.cookies = cookies;
+    }
+
+    public static Session login(LoadTestOptions options) throws IOException, InterruptedException {
+        CookieManager cookies = new CookieManager();
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(cookies)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(options.timeoutSeconds()))
+                .build();
+        Session session = new Session(options, client, cookies);
+        if ("gateway".equals(options.auth())) {
+            session.loginThroughGateway();
+        } else if ("bearer".equals(options.auth())) {
+            session.refreshAccessToken();
+        } else {
+            throw new IllegalArgumentException("Unknown auth mode " + options.auth() + ", expected gateway or bearer");
+        }
+        return session;
+    }
+
+    public HttpClient client() {
+        return client;
+    }
+
+    /**
+     * Дописывает к запросу то, что нужно для авторизации: bearer-токен или CSRF-токен из cookie шлюза.
+     */
+    public HttpRequest.Builder authorize(HttpRequest.Builder request) {
+        if ("bearer".equals(options.auth())) {
+            return request.header("Authorization", "Bearer " + accessToken());
+        }
+        String csrfToken = cookie("XSRF-TOKEN");
+        return csrfToken != null ? request.header("X-XSRF-TOKEN", csrfToken) : request;
+    }
+
+    private void loginThroughGateway() throws IOException, InterruptedException {
+        // Шлюз уводит на страницу входа заглушки, та сразу возвращает код, шлюз меняет его на токены и ставит SESSION
+        URI authorization = URI.create(options.target() + "/oauth2/authorization/" + options.registrationId());
+        client.send(HttpRequest.newBuilder(authorization).GET().build(), HttpResponse.BodyHandlers.discarding());
+        if (cookie("SESSION") == null) {
+            throw new IllegalStateException("Login through " + authorization + " did not establish a gateway session");
+        }
+        // Без CSRF-токена каждый POST получил бы 403 и попал в отчёт как обычный ответ
+        if (options.createRatio() > 0 && cookie("XSRF-TOKEN") == null) {
+            throw new IllegalStateException("Gateway issued no XSRF-TOKEN cookie, POST /api/users would be rejected. "
+                    + "Start backend-gateway-client with the keycloak-stub profile or run with --create-ratio=0");
+        }
+    }
+
+    private synchronized String accessToken() {
+        if (Instant.now().isAfter(accessTokenExpiresAt)) {
+            try {
+                refreshAccessToken();
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not refresh access token: " + ex.getMessage(), ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while refreshing access token", ex);
+            }
+        }
+        return accessToken;
+    }
+
+    private synchronized void refreshAccessToken() throws IOException, InterruptedException {
+        String form = "grant_type=client_credentials&client_id="
+                + URLEncoder.encode(options.clientId(), StandardCharsets.UTF_8);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(options.tokenUrl()))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Token endpoint " + options.tokenUrl() + " answered " + response.statusCode());
+        }
+        JsonNode token = OBJECT_MAPPER.readTree(response.body());
+        accessToken = token.path("access_token").asText();
+        accessTokenExpiresAt = Instant.now().plusSeconds(Math.max(token.path("expires_in").asLong() - 60, 0));
+    }
+
+    private String cookie(String name) {
+        return cookies.getCookieStore().getCookies().stream()
+                .filter(cookie -> name.equals(cookie.getName()))
+                .map(HttpCookie::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.itm.space.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Смесь запросов прогона: чтение существующих пользователей по id и создание новых с уникальным username.
+ */
+public class Workload {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final LoadTestOptions options;
+    private final List<String> userIds;
+    private final String runId = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+
+    public Workload(LoadTestOptions options, List<String> userIds) {
+        if (userIds.isEmpty() && options.createRatio() < 1) {
+            throw new IllegalStateException("No users to read, the realm is empty");
+        }
+        this.options = options;
+        this.userIds = userIds;
+    }
+
+    /**
+     * Первые {@code idPool} пользователей реалма из потокового списка — их и будем читать.
+     */
+    public static List<String> loadUserIds(Session session, LoadTestOptions options)
+            throws IOException, InterruptedException {
+        HttpRequest request = session.authorize(HttpRequest.newBuilder(URI.create(options.target() + "/api/users"))
+                        .header("Accept", "application/x-ndjson")
+                        .timeout(Duration.ofSeconds(options.timeoutSeconds() * 10L)))
+                .GET()
+                .build();
+        HttpResponse<Stream<String>> response = session.client().send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("Listing users answered " + response.statusCode());
+            }
+            return lines.filter(line -> !line.isBlank())
+                    .limit(options.idPool())
+                    .map(line -> {
+                        try {
+                            return OBJECT_MAPPER.readTree(line).path("id").asText();
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    })
+                    .toList();
+        }
+    }
+
+    public Operation next() {
+        return ThreadLocalRandom.current().nextDouble() < options.createRatio() ? Operation.CREATE_USER : Operation.GET_USER;
+    }
+
+    public HttpRequest request(Operation operation, Session session, long sequence) {
+        HttpRequest.Builder request = switch (operation) {
+            case GET_USER -> HttpRequest.newBuilder(URI.create(options.target() + "/api/users/"
+                    + userIds.get(ThreadLocalRandom.current().nextInt(userIds.size())))).GET();
+            case CREATE_USER -> HttpRequest.newBuilder(URI.create(options.target() + "/api/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(newUser(sequence)));
+        };
+        return session.authorize(request.timeout(Duration.ofSeconds(options.timeoutSeconds()))).build();
+    }
+
+    private byte[] newUser(long sequence) {
+        String username = "lt-" + runId + "-" + sequence;
+        Map<String, String> user = new LinkedHashMap<>();
+        user.put("username", username);
+        user.put("email", username + "@load.test");
+        user.put("password", "load-test");
+        user.put("firstName", "Load");
+        user.put("lastName", "Test " + sequence);
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(user);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
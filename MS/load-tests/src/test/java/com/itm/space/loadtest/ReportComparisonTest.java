@@ -0,0 +1,62 @@
+package com.itm.space.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportComparisonTest {
+
+    @Test
+    void reportsP99RegressionAboveThreshold() {
+        LoadReport baseline = report("base", stats(1000, 0, 20));
+        LoadReport candidate = report("head", stats(1000, 0, 25));
+
+        List<String> regressions = new ReportComparison(baseline, candidate).regressions(10);
+
+        assertTrue(regressions.stream().anyMatch(regression -> regression.startsWith("get_user: p99")));
+    }
+
+    @Test
+    void ignoresP99ChangeWithinThreshold() {
+        LoadReport baseline = report("base", stats(1000, 0, 20));
+        LoadReport candidate = report("head", stats(1000, 0, 21));
+
+        assertEquals(List.of(), new ReportComparison(baseline, candidate).regressions(10));
+    }
+
+    @Test
+    void reportsErrorRateIncrease() {
+        LoadReport baseline = report("base", stats(1000, 0, 20));
+        LoadReport candidate = report("head", stats(1000, 5, 20));
+
+        List<String> regressions = new ReportComparison(baseline, candidate).regressions(10);
+
+        assertTrue(regressions.stream().anyMatch(regression -> regression.startsWith("get_user: error rate")));
+    }
+
+    @Test
+    void reportSurvivesJsonRoundTrip(@TempDir Path directory) throws Exception {
+        LoadReport report = report("base", stats(1000, 3, 20));
+        Path path = directory.resolve("reports/base.json");
+
+        report.write(path);
+
+        assertEquals(report, LoadReport.read(path));
+    }
+
+    private static LoadReport report(String label, LoadReport.OperationStats getUser) {
+        return new LoadReport(label, "2024-01-01T00:00:00Z", "http://localhost:9090", "gateway", 100, 60, 0,
+                Map.of("get_user", getUser), getUser);
+    }
+
+    private static LoadReport.OperationStats stats(long count, long errors, double p99Ms) {
+        return new LoadReport.OperationStats(count, errors, count / 60.0, p99Ms / 4, p99Ms / 2, p99Ms, p99Ms * 2,
+                p99Ms * 3, Map.of("200", count - errors));
+    }
+}